@@ -0,0 +1,100 @@
+package org.zalando.baigan.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zalando.baigan.model.Condition;
+import org.zalando.baigan.model.ConditionType;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.EndsWith;
+import org.zalando.baigan.model.Equals;
+import org.zalando.baigan.model.In;
+import org.zalando.baigan.proxy.handler.ConditionsProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the evaluation of the conditions of a single configuration depending on their number and type. The
+ * context either matches the last condition or none, which are the most expensive cases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConditionsProcessorBenchmark {
+
+    private static final String PARAM_NAME = "shop";
+
+    @Param({"1", "10", "100", "1000"})
+    private int conditionCount;
+
+    @Param({"EQUALS", "IN", "ENDS_WITH"})
+    private ConditionKind conditionKind;
+
+    private final ConditionsProcessor conditionsProcessor = new ConditionsProcessor();
+
+    private Configuration<Integer> configuration;
+
+    private Map<String, String> lastMatchingContext;
+
+    private Map<String, String> nonMatchingContext;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final List<Condition<Integer>> conditions = new ArrayList<>(conditionCount);
+        for (int i = 0; i < conditionCount; i++) {
+            conditions.add(new Condition<>(PARAM_NAME, conditionKind.create("shop-" + i), i));
+        }
+        configuration = new Configuration<>("benchmark.conditions", "", conditions, -1);
+        lastMatchingContext = Map.of(PARAM_NAME, "shop-" + (conditionCount - 1));
+        nonMatchingContext = Map.of(PARAM_NAME, "no-shop");
+    }
+
+    @Benchmark
+    public Integer lastConditionMatches() {
+        return conditionsProcessor.process(configuration, lastMatchingContext);
+    }
+
+    @Benchmark
+    public Integer noConditionMatches() {
+        return conditionsProcessor.process(configuration, nonMatchingContext);
+    }
+
+    public enum ConditionKind {
+        EQUALS {
+            @Override
+            ConditionType create(final String value) {
+                return new Equals(value);
+            }
+        },
+        IN {
+            @Override
+            ConditionType create(final String value) {
+                return new In(Set.of(value, value + "-other"));
+            }
+        },
+        ENDS_WITH {
+            @Override
+            ConditionType create(final String value) {
+                return new EndsWith(Set.of(value));
+            }
+        };
+
+        abstract ConditionType create(String value);
+    }
+}
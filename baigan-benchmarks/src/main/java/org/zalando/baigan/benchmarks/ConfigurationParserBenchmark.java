@@ -0,0 +1,74 @@
+package org.zalando.baigan.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.repository.ConfigurationConverter;
+import org.zalando.baigan.repository.ConfigurationDocument;
+import org.zalando.baigan.repository.ConfigurationFormat;
+import org.zalando.baigan.repository.ConfigurationParser;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a configuration file, as done on every reload of a repository, depending on its size and
+ * format. The binary formats are converted from the same generated JSON document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ConfigurationParserBenchmark {
+
+    /**
+     * The size of the configuration file in bytes: 100 KB, 10 MB and 100 MB.
+     */
+    @Param({"102400", "10485760", "104857600"})
+    private long inputSize;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    private ConfigurationFormat format;
+
+    private ConfigurationParser parser;
+
+    private String text;
+
+    private ConfigurationDocument document;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final GeneratedConfigurations configurations = GeneratedConfigurations.ofSize(inputSize);
+        parser = configurations.createParser();
+        text = configurations.getText();
+        document = ConfigurationConverter.convert(ConfigurationDocument.ofJson(text), format);
+    }
+
+    /**
+     * Parses the JSON text, as done for configurations passed as a string.
+     */
+    @Benchmark
+    public List<Configuration<?>> parseConfigurations() {
+        return parser.parseConfigurations(text);
+    }
+
+    /**
+     * Parses the document straight from its bytes, as done by the repositories.
+     */
+    @Benchmark
+    public List<Configuration<?>> parseDocument() {
+        return parser.parseDocument(document);
+    }
+}
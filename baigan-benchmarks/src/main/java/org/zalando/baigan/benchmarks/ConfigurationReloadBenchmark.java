@@ -0,0 +1,79 @@
+package org.zalando.baigan.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zalando.baigan.repository.ConfigurationDocument;
+import org.zalando.baigan.repository.ConfigurationParser;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reloading a configuration file into a snapshot, as done by the repositories, with string and POJO valued
+ * configurations and optionally with the bytecode generating deserializers of the Blackbird module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ConfigurationReloadBenchmark {
+
+    /**
+     * The size of the configuration file in bytes: 100 KB and 10 MB.
+     */
+    @Param({"102400", "10485760"})
+    private long inputSize;
+
+    @Param({"false", "true"})
+    private boolean structured;
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    private ConfigurationParser parser;
+
+    private ConfigurationDocument document;
+
+    private ConfigurationDocument changedDocument;
+
+    private ConfigurationSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final GeneratedConfigurations configurations = GeneratedConfigurations.ofSize(inputSize, structured);
+        parser = configurations.createParser(blackbird ? new ObjectMapper().registerModule(new BlackbirdModule()) : null);
+        document = ConfigurationDocument.ofJson(configurations.getText());
+        changedDocument = ConfigurationDocument.ofJson(configurations.withChangedValues(100).getText());
+        snapshot = parser.parseSnapshot(document, null);
+    }
+
+    /**
+     * Deserializes all configurations of the file, as done on startup.
+     */
+    @Benchmark
+    public ConfigurationSnapshot fullReload() {
+        return parser.parseSnapshot(document, null);
+    }
+
+    /**
+     * Deserializes only the configurations that differ from the previous snapshot, one in a hundred.
+     */
+    @Benchmark
+    public ConfigurationSnapshot partialReload() {
+        return parser.parseSnapshot(changedDocument, snapshot);
+    }
+}
@@ -0,0 +1,125 @@
+package org.zalando.baigan.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.zalando.baigan.proxy.BaiganConfigClasses;
+import org.zalando.baigan.repository.ConfigurationParser;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A configuration file of a given size with generated keys, all of type {@link String} or {@link StructuredValue}
+ * and with a single condition, together with a parser that knows these keys as the registrar would.
+ */
+final class GeneratedConfigurations {
+
+    private static final String KEY_PREFIX = "benchmark.generated.key";
+
+    private final String text;
+    private final List<String> keys;
+    private final boolean structured;
+
+    private GeneratedConfigurations(final String text, final List<String> keys, final boolean structured) {
+        this.text = text;
+        this.keys = keys;
+        this.structured = structured;
+    }
+
+    /**
+     * Generates configurations of type {@link String} until their text reaches the given size in bytes.
+     */
+    static GeneratedConfigurations ofSize(final long sizeInBytes) {
+        return ofSize(sizeInBytes, false);
+    }
+
+    /**
+     * Generates configurations until their text reaches the given size in bytes.
+     *
+     * @param structured Whether the values are {@link StructuredValue}s instead of strings
+     */
+    static GeneratedConfigurations ofSize(final long sizeInBytes, final boolean structured) {
+        final StringBuilder text = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, sizeInBytes + 1024));
+        final List<String> keys = new ArrayList<>();
+        text.append('[');
+        while (text.length() < sizeInBytes || keys.isEmpty()) {
+            keys.add(appendConfiguration(text, keys.size(), structured, false));
+        }
+        text.append(']');
+        return new GeneratedConfigurations(text.toString(), List.copyOf(keys), structured);
+    }
+
+    /**
+     * @return The same configurations, except that the value of every n-th one has changed, as in a partial update
+     * of the file.
+     */
+    GeneratedConfigurations withChangedValues(final int n) {
+        final StringBuilder text = new StringBuilder(this.text.length() + 1024);
+        text.append('[');
+        for (int i = 0; i < keys.size(); i++) {
+            appendConfiguration(text, i, structured, i % n == 0);
+        }
+        text.append(']');
+        return new GeneratedConfigurations(text.toString(), keys, structured);
+    }
+
+    private static String appendConfiguration(final StringBuilder text, final int index, final boolean structured,
+                                              final boolean changed) {
+        final String key = KEY_PREFIX + index;
+        if (index > 0) {
+            text.append(',');
+        }
+        text.append("{\"alias\":\"").append(key).append("\",")
+                .append("\"description\":\"Generated configuration number ").append(index).append("\",")
+                .append("\"defaultValue\":");
+        appendValue(text, "default value of " + key, index, structured);
+        text.append(",\"conditions\":[{\"paramName\":\"country\",")
+                .append("\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"DE\"},")
+                .append("\"value\":");
+        appendValue(text, (changed ? "changed german value of " : "german value of ") + key, index, structured);
+        text.append("}]}");
+        return key;
+    }
+
+    private static void appendValue(final StringBuilder text, final String value, final int index,
+                                    final boolean structured) {
+        if (structured) {
+            text.append("{\"name\":\"").append(value).append("\",\"limit\":").append(index)
+                    .append(",\"enabled\":").append(index % 2 == 0)
+                    .append(",\"tags\":[\"generated\",\"benchmark\"]}");
+        } else {
+            text.append('"').append(value).append('"');
+        }
+    }
+
+    String getText() {
+        return text;
+    }
+
+    List<String> getKeys() {
+        return keys;
+    }
+
+    ConfigurationParser createParser() {
+        return createParser(null);
+    }
+
+    /**
+     * @param objectMapper The object mapper to deserialize the configurations with, or {@code null} for the default
+     */
+    ConfigurationParser createParser(final ObjectMapper objectMapper) {
+        final Map<String, Type> configTypesByKey = new HashMap<>();
+        final Map<String, Integer> keyIds = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            configTypesByKey.put(keys.get(i), structured ? StructuredValue.class : String.class);
+            keyIds.put(keys.get(i), i);
+        }
+        final BaiganConfigClasses baiganConfigClasses = new BaiganConfigClasses();
+        baiganConfigClasses.setConfigTypesByKey(configTypesByKey);
+        baiganConfigClasses.setKeyIds(keyIds);
+        return new ConfigurationParser(baiganConfigClasses, Optional.ofNullable(objectMapper));
+    }
+}
@@ -0,0 +1,38 @@
+package org.zalando.baigan.benchmarks;
+
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A fixed set of configurations kept in memory, so that the benchmarks measure the invocation path only.
+ */
+final class InMemoryConfigurationRepository implements ConfigurationRepository {
+
+    private final ConfigurationSnapshot snapshot;
+
+    InMemoryConfigurationRepository(final Configuration<?>... configurations) {
+        this.snapshot = ConfigurationSnapshot.of(List.of(configurations));
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Configuration> get(@Nonnull final String key) {
+        return Optional.ofNullable(snapshot.get(key));
+    }
+
+    @Nonnull
+    @Override
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void put(@Nonnull final String key, @Nonnull final String value) {
+        throw new UnsupportedOperationException();
+    }
+}
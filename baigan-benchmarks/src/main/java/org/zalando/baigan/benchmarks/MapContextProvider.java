@@ -0,0 +1,26 @@
+package org.zalando.baigan.benchmarks;
+
+import org.zalando.baigan.context.ContextProvider;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Set;
+
+final class MapContextProvider implements ContextProvider {
+
+    private final Map<String, String> context;
+
+    MapContextProvider(final Map<String, String> context) {
+        this.context = Map.copyOf(context);
+    }
+
+    @Override
+    public String getContextParam(@Nonnull final String name) {
+        return context.get(name);
+    }
+
+    @Override
+    public Set<String> getProvidedContexts() {
+        return context.keySet();
+    }
+}
@@ -0,0 +1,110 @@
+package org.zalando.baigan.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.zalando.baigan.benchmarks.configs.BenchmarkConfiguration;
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.model.Condition;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.Equals;
+import org.zalando.baigan.proxy.ConfigurationServiceBeanFactory;
+import org.zalando.baigan.proxy.ProxyEngine;
+import org.zalando.baigan.proxy.handler.ConditionsProcessor;
+import org.zalando.baigan.proxy.handler.ContextAwareConfigurationMethodInvocationHandler;
+import org.zalando.baigan.repository.ConfigurationRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of calling a configuration method through the {@link ProxyEngine#REFLECTION reflection}
+ * proxy with the {@link ProxyEngine#GENERATED generated} implementation, for methods with no, one and several
+ * context providers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ProxyInvocationBenchmark {
+
+    @Param({"REFLECTION", "GENERATED"})
+    private ProxyEngine proxyEngine;
+
+    private BenchmarkConfiguration configuration;
+
+    private ContextProvider contextProvider;
+
+    private ContextProvider shopContextProvider;
+
+    private ContextProvider channelContextProvider;
+
+    private ContextProvider customerContextProvider;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final ConfigurationRepository repository = new InMemoryConfigurationRepository(
+                new Configuration<>("benchmark.configuration.plain.value", "", Set.of(), "plain"),
+                new Configuration<>("benchmark.configuration.contextual.value", "",
+                        Set.of(new Condition<>("country", new Equals("DE"), "german")), "default"),
+                new Configuration<>("benchmark.configuration.multi.contextual.value", "",
+                        List.of(new Condition<>("country", new Equals("FR"), "french"),
+                                new Condition<>("customer", new Equals("42"), "customer 42")), "default")
+        );
+        configuration = createConfiguration(repository, proxyEngine);
+        contextProvider = new MapContextProvider(Map.of("country", "DE"));
+        shopContextProvider = new MapContextProvider(Map.of("shop", "1"));
+        channelContextProvider = new MapContextProvider(Map.of("channel", "web"));
+        customerContextProvider = new MapContextProvider(Map.of("customer", "42"));
+    }
+
+    @Benchmark
+    public String withoutContext() {
+        return configuration.plainValue();
+    }
+
+    @Benchmark
+    public String withContextProvider() {
+        return configuration.contextualValue(contextProvider);
+    }
+
+    @Benchmark
+    public String withSeveralContextProviders() {
+        return configuration.multiContextualValue(contextProvider, shopContextProvider, channelContextProvider,
+                customerContextProvider);
+    }
+
+    /**
+     * Creates the configuration bean the same way the Spring context does, without scanning for it.
+     */
+    static BenchmarkConfiguration createConfiguration(final ConfigurationRepository repository,
+                                                      final ProxyEngine proxyEngine) throws Exception {
+        final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        final ContextAwareConfigurationMethodInvocationHandler handler = new ContextAwareConfigurationMethodInvocationHandler();
+        handler.setBeanFactory(beanFactory);
+        beanFactory.addBean("configurationRepository", repository);
+        beanFactory.addBean("conditionsProcessor", new ConditionsProcessor());
+        beanFactory.addBean("configurationMethodInvocationHandler", handler);
+
+        final ConfigurationServiceBeanFactory factory = new ConfigurationServiceBeanFactory();
+        factory.setCandidateInterface(BenchmarkConfiguration.class);
+        factory.setProxyEngine(proxyEngine);
+        factory.setBeanFactory(beanFactory);
+        factory.afterPropertiesSet();
+        return (BenchmarkConfiguration) factory.getObject();
+    }
+}
@@ -0,0 +1,161 @@
+package org.zalando.baigan.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.RepositoryFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures concurrent lookups of configurations by key in a {@link org.zalando.baigan.repository.FileSystemConfigurationRepository}
+ * and in a {@link org.zalando.baigan.repository.ChainedConfigurationRepository} that has to skip a repository
+ * without the key first. Each benchmark method runs with a different number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RepositoryLookupBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+
+        @Param({"1000"})
+        private int keyCount;
+
+        private final Path[] files = new Path[2];
+
+        private ConfigurationRepository fileSystemRepository;
+
+        private ConfigurationRepository chainedRepository;
+
+        private List<String> keys;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            final GeneratedConfigurations configurations = generateKeys(keyCount);
+            final RepositoryFactory repositoryFactory = new RepositoryFactory(configurations.createParser());
+            keys = configurations.getKeys();
+
+            files[0] = writeTempFile(configurations.getText());
+            files[1] = writeTempFile("[]");
+            fileSystemRepository = repositoryFactory.fileSystemConfigurationRepository()
+                    .fileName(files[0].toString())
+                    .build();
+            chainedRepository = repositoryFactory.chainedConfigurationRepository()
+                    .addRepository(repositoryFactory.fileSystemConfigurationRepository()
+                            .fileName(files[1].toString())
+                            .build())
+                    .addRepository(fileSystemRepository)
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        private static GeneratedConfigurations generateKeys(final int keyCount) {
+            // a single configuration takes less than 300 bytes
+            GeneratedConfigurations configurations = GeneratedConfigurations.ofSize(keyCount * 300L);
+            while (configurations.getKeys().size() < keyCount) {
+                configurations = GeneratedConfigurations.ofSize(configurations.getText().length() * 2L);
+            }
+            return configurations;
+        }
+
+        private static Path writeTempFile(final String text) throws IOException {
+            final Path file = Files.createTempFile("baigan-benchmark", ".json");
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            return file;
+        }
+    }
+
+    /**
+     * Cycles through the keys per thread, so that threads do not contend on a shared counter.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        private int next;
+
+        String next(final Repositories repositories) {
+            final List<String> keys = repositories.keys;
+            if (next == keys.size()) {
+                next = 0;
+            }
+            return keys.get(next++);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<Configuration> fileSystem1Thread(final Repositories repositories, final Keys keys) {
+        return repositories.fileSystemRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Configuration> fileSystem4Threads(final Repositories repositories, final Keys keys) {
+        return repositories.fileSystemRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Optional<Configuration> fileSystem16Threads(final Repositories repositories, final Keys keys) {
+        return repositories.fileSystemRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Optional<Configuration> fileSystem64Threads(final Repositories repositories, final Keys keys) {
+        return repositories.fileSystemRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<Configuration> chained1Thread(final Repositories repositories, final Keys keys) {
+        return repositories.chainedRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Configuration> chained4Threads(final Repositories repositories, final Keys keys) {
+        return repositories.chainedRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Optional<Configuration> chained16Threads(final Repositories repositories, final Keys keys) {
+        return repositories.chainedRepository.get(keys.next(repositories));
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Optional<Configuration> chained64Threads(final Repositories repositories, final Keys keys) {
+        return repositories.chainedRepository.get(keys.next(repositories));
+    }
+}
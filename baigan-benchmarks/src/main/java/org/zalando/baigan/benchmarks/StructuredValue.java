@@ -0,0 +1,47 @@
+package org.zalando.baigan.benchmarks;
+
+import java.util.List;
+
+/**
+ * A POJO-valued configuration as used by {@link GeneratedConfigurations}, with the accessors bytecode generating
+ * deserializers like Blackbird optimize.
+ */
+public class StructuredValue {
+
+    private String name;
+    private int limit;
+    private boolean enabled;
+    private List<String> tags;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(final int limit) {
+        this.limit = limit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(final List<String> tags) {
+        this.tags = tags;
+    }
+}
@@ -0,0 +1,15 @@
+package org.zalando.baigan.benchmarks.configs;
+
+import org.zalando.baigan.annotation.BaiganConfig;
+import org.zalando.baigan.context.ContextProvider;
+
+@BaiganConfig
+public interface BenchmarkConfiguration {
+
+    String plainValue();
+
+    String contextualValue(ContextProvider contextProvider);
+
+    String multiContextualValue(ContextProvider country, ContextProvider shop, ContextProvider channel,
+                                ContextProvider customer);
+}
@@ -25,6 +25,7 @@ import java.lang.annotation.Target;
 
 import org.springframework.context.annotation.Import;
 import org.zalando.baigan.proxy.ConfigurationBeanDefinitionRegistrar;
+import org.zalando.baigan.proxy.ProxyEngine;
 
 /**
  * Use this annotation to enable the Baigan configuration.
@@ -59,4 +60,10 @@ public @interface ConfigurationServiceScan {
      */
     Class<?>[] basePackageClasses() default {};
 
+    /**
+     * The mechanism used to implement the {@link BaiganConfig} interfaces. Defaults to
+     * {@link ProxyEngine#REFLECTION}.
+     */
+    ProxyEngine proxyEngine() default ProxyEngine.REFLECTION;
+
 }
\ No newline at end of file
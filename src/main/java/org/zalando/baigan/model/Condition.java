@@ -20,7 +20,10 @@ import java.io.Serializable;
 import java.util.Objects;
 import java.util.StringJoiner;
 
+import javax.annotation.Nullable;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -44,13 +47,27 @@ public class Condition<T> implements Serializable {
     @JsonProperty
     private T value;
 
+    @JsonProperty
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer priority;
+
+    public Condition(final String paramName, final ConditionType conditionType, final T value) {
+        this(paramName, conditionType, value, null);
+    }
+
+    /**
+     * @param priority Optional precedence of this condition over the other conditions of the same configuration.
+     *                 Lower values are evaluated first, conditions without priority after all prioritized ones.
+     */
     @JsonCreator
     public Condition(@JsonProperty("paramName") final String paramName,
             @JsonProperty("conditionType") ConditionType conditionType,
-            @JsonProperty("value") T value) {
+            @JsonProperty("value") T value,
+            @JsonProperty("priority") @Nullable Integer priority) {
         this.paramName = paramName;
         this.conditionType = conditionType;
         this.value = value;
+        this.priority = priority;
     }
 
     public String getParamName() {
@@ -65,17 +82,22 @@ public class Condition<T> implements Serializable {
         return conditionType;
     }
 
+    @Nullable
+    public Integer getPriority() {
+        return priority;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Condition<?> condition = (Condition<?>) o;
-        return Objects.equals(paramName, condition.paramName) && Objects.equals(conditionType, condition.conditionType) && Objects.equals(value, condition.value);
+        return Objects.equals(paramName, condition.paramName) && Objects.equals(conditionType, condition.conditionType) && Objects.equals(value, condition.value) && Objects.equals(priority, condition.priority);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(paramName, conditionType, value);
+        return Objects.hash(paramName, conditionType, value, priority);
     }
 
     @Override
@@ -84,6 +106,7 @@ public class Condition<T> implements Serializable {
                 .add("paramName='" + paramName + "'")
                 .add("conditionType=" + conditionType)
                 .add("value=" + value)
+                .add("priority=" + priority)
                 .toString();
     }
 }
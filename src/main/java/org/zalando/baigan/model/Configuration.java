@@ -17,11 +17,18 @@
 package org.zalando.baigan.model;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 import java.util.StringJoiner;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsLast;
 
 /**
  * @author mchand
@@ -38,18 +45,26 @@ public class Configuration<Type> implements Serializable {
     private String description;
 
     @JsonProperty
-    private Set<Condition<Type>> conditions;
+    private List<Condition<Type>> conditions;
 
     @JsonProperty
     private Type defaultValue;
 
+    @JsonIgnore
+    private transient volatile EvaluationPlan<Type> evaluationPlan;
+
+    /**
+     * @param conditions The conditions in the order they are evaluated in. Conditions with a
+     *                   {@link Condition#getPriority() priority} are moved ahead of the others, keeping the given
+     *                   order among conditions of equal priority.
+     */
     public Configuration(@JsonProperty("alias") final String alias,
             @JsonProperty("description") final String description,
-            @JsonProperty("conditions") final Set<Condition<Type>> conditions,
+            @JsonProperty("conditions") final Collection<Condition<Type>> conditions,
             @JsonProperty("defaultValue") final Type defaultValue) {
         this.alias = alias;
         this.description = description;
-        this.conditions = conditions;
+        this.conditions = conditions == null ? ImmutableList.of() : orderByPriority(conditions);
         this.defaultValue = defaultValue;
     }
 
@@ -61,7 +76,10 @@ public class Configuration<Type> implements Serializable {
         return description;
     }
 
-    public Set<Condition<Type>> getConditions() {
+    /**
+     * @return The conditions in evaluation order, i.e. the order they were defined in unless they have a priority.
+     */
+    public List<Condition<Type>> getConditions() {
         return conditions;
     }
 
@@ -69,6 +87,41 @@ public class Configuration<Type> implements Serializable {
         return defaultValue;
     }
 
+    /**
+     * @return The compiled conditions of this configuration. They are compiled on first access unless
+     * {@link #compile()} was called before.
+     */
+    @JsonIgnore
+    public EvaluationPlan<Type> getEvaluationPlan() {
+        EvaluationPlan<Type> plan = evaluationPlan;
+        if (plan == null) {
+            plan = EvaluationPlan.compile(this);
+            evaluationPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Compiles the conditions of this configuration ahead of their first evaluation.
+     *
+     * @return this configuration
+     */
+    public Configuration<Type> compile() {
+        getEvaluationPlan();
+        return this;
+    }
+
+    private static <T> List<Condition<T>> orderByPriority(final Collection<Condition<T>> conditions) {
+        final List<Condition<T>> ordered = ImmutableList.copyOf(conditions);
+        if (ordered.stream().allMatch(condition -> condition.getPriority() == null)) {
+            return ordered;
+        }
+        return ImmutableList.sortedCopyOf(
+                Comparator.<Condition<T>, Integer>comparing(Condition::getPriority, nullsLast(naturalOrder())),
+                ordered
+        );
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
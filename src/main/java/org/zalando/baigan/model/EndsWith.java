@@ -38,15 +38,21 @@ public class EndsWith extends ConditionType {
     @JsonProperty("endsWithValue")
     private final Set<String> endsWithValue;
 
+    /**
+     * The values as an array, which unlike the set can be iterated without allocating.
+     */
+    private final transient String[] endsWithValues;
+
     @JsonCreator
     public EndsWith(
             @JsonProperty("endsWithValue") final Set<String> endsWithValue) {
         this.endsWithValue = endsWithValue;
+        this.endsWithValues = endsWithValue == null ? null : endsWithValue.toArray(new String[0]);
     }
 
     @Override
     public boolean eval(final String forValue) {
-        for (final String endsWith : endsWithValue) {
+        for (final String endsWith : endsWithValues) {
             if (StringUtils.endsWithIgnoreCase(forValue, endsWith)) {
                 return true;
             }
@@ -54,6 +60,10 @@ public class EndsWith extends ConditionType {
         return false;
     }
 
+    private Object readResolve() {
+        return new EndsWith(endsWithValue);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
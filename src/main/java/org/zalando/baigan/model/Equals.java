@@ -41,6 +41,10 @@ public class Equals extends ConditionType {
         this.onValue = onValue;
     }
 
+    String getOnValue() {
+        return onValue;
+    }
+
     @Override
     public boolean eval(final String forValue) {
         return onValue.equalsIgnoreCase(forValue);
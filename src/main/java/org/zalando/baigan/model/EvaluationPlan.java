@@ -0,0 +1,263 @@
+package org.zalando.baigan.model;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The compiled form of the conditions of a {@link Configuration}.
+ * <p>
+ * Conditions are evaluated in the order of {@link Configuration#getConditions()} and the value of the first
+ * matching one wins. Runs of consecutive {@link Equals} and {@link In} conditions on the same context param are
+ * collapsed into a single hash lookup from the param value to the first condition of the run that matches it, so
+ * that their evaluation does not depend on the number of conditions.
+ */
+public final class EvaluationPlan<T> {
+
+    /**
+     * Runs shorter than this are evaluated condition by condition, which is cheaper than hashing the value.
+     */
+    static final int MIN_INDEXED_RUN_LENGTH = 4;
+
+    private static final Step<?>[] NO_STEPS = new Step<?>[0];
+
+    private final Step<T>[] steps;
+    private final T defaultValue;
+
+    @SuppressWarnings("unchecked")
+    private EvaluationPlan(final List<Step<T>> steps, final T defaultValue) {
+        this.steps = (Step<T>[]) steps.toArray(NO_STEPS);
+        this.defaultValue = defaultValue;
+    }
+
+    @Nonnull
+    public static <T> EvaluationPlan<T> compile(final Configuration<T> configuration) {
+        final List<Condition<T>> conditions = configuration.getConditions();
+        if (conditions.isEmpty()) {
+            return new EvaluationPlan<>(ImmutableList.of(), configuration.getDefaultValue());
+        }
+
+        final ImmutableList.Builder<Step<T>> steps = ImmutableList.builder();
+        final List<Condition<T>> run = new ArrayList<>();
+        for (final Condition<T> condition : conditions) {
+            if (!run.isEmpty() && !(isIndexable(condition)
+                    && Objects.equals(run.get(0).getParamName(), condition.getParamName()))) {
+                addRun(steps, run);
+            }
+            if (isIndexable(condition)) {
+                run.add(condition);
+            } else {
+                steps.add(new SingleCondition<>(condition));
+            }
+        }
+        addRun(steps, run);
+        return new EvaluationPlan<>(steps.build(), configuration.getDefaultValue());
+    }
+
+    /**
+     * @return Whether the plan evaluates to the default value regardless of the context, i.e. the configuration
+     * has no conditions.
+     */
+    public boolean isConstant() {
+        return steps.length == 0;
+    }
+
+    /**
+     * @return The value of the first condition matching the given context, or the default value if none matches.
+     */
+    @Nullable
+    public T evaluate(final Map<String, String> context) {
+        for (final Step<T> step : steps) {
+            final Condition<T> match = step.match(context);
+            if (match != null) {
+                return match.getValue();
+            }
+        }
+        return defaultValue;
+    }
+
+    private static <T> void addRun(final ImmutableList.Builder<Step<T>> steps, final List<Condition<T>> run) {
+        if (run.size() >= MIN_INDEXED_RUN_LENGTH) {
+            steps.add(new IndexedRun<>(run));
+        } else {
+            run.forEach(condition -> steps.add(new SingleCondition<>(condition)));
+        }
+        run.clear();
+    }
+
+    private static boolean isIndexable(final Condition<?> condition) {
+        final ConditionType conditionType = condition.getConditionType();
+        if (conditionType == null) {
+            return false;
+        }
+        if (conditionType.getClass() == Equals.class) {
+            final String onValue = ((Equals) conditionType).getOnValue();
+            return onValue != null && !hasSurrogates(onValue);
+        }
+        return conditionType.getClass() == In.class && ((In) conditionType).getInValue() != null;
+    }
+
+    /**
+     * Maps the value to a representative of its class under {@link String#equalsIgnoreCase(String)}. This holds
+     * for strings without surrogates, which are compared char by char.
+     */
+    static String foldCase(final String value) {
+        final char[] folded = new char[value.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = foldCase(value.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private static char foldCase(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean hasSurrogates(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isSurrogate(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private interface Step<T> {
+
+        @Nullable
+        Condition<T> match(Map<String, String> context);
+    }
+
+    private static final class SingleCondition<T> implements Step<T> {
+
+        private final Condition<T> condition;
+
+        private SingleCondition(final Condition<T> condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public Condition<T> match(final Map<String, String> context) {
+            return condition.getConditionType().eval(context.get(condition.getParamName())) ? condition : null;
+        }
+    }
+
+    private static final class IndexedRun<T> implements Step<T> {
+
+        private final String paramName;
+        private final List<Condition<T>> conditions;
+        private final Map<String, Integer> firstInIndex = new HashMap<>();
+        private final FoldedCaseIndex firstEqualsIndex;
+
+        private IndexedRun(final List<Condition<T>> conditions) {
+            this.paramName = conditions.get(0).getParamName();
+            this.conditions = ImmutableList.copyOf(conditions);
+            this.firstEqualsIndex = new FoldedCaseIndex(conditions.size());
+            for (int i = 0; i < conditions.size(); i++) {
+                final ConditionType conditionType = conditions.get(i).getConditionType();
+                if (conditionType instanceof Equals) {
+                    firstEqualsIndex.putIfAbsent(((Equals) conditionType).getOnValue(), i);
+                } else {
+                    for (final String value : ((In) conditionType).getInValue()) {
+                        if (value != null) {
+                            firstInIndex.putIfAbsent(value, i);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Condition<T> match(final Map<String, String> context) {
+            final String value = context.get(paramName);
+            if (value == null || hasSurrogates(value)) {
+                return matchSequentially(value);
+            }
+            final Integer inIndex = firstInIndex.get(value);
+            final int equalsIndex = firstEqualsIndex.get(value);
+            if (inIndex == null) {
+                return equalsIndex < 0 ? null : conditions.get(equalsIndex);
+            }
+            return conditions.get(equalsIndex >= 0 && equalsIndex < inIndex ? equalsIndex : inIndex);
+        }
+
+        private Condition<T> matchSequentially(@Nullable final String value) {
+            for (int i = 0; i < conditions.size(); i++) {
+                final Condition<T> condition = conditions.get(i);
+                if (condition.getConditionType().eval(value)) {
+                    return condition;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * An open addressing table from strings to the index of the first condition matching them under
+     * {@link String#equalsIgnoreCase(String)}. Keys are stored {@link #foldCase(String) case folded}, while looked up
+     * values are folded char by char during hashing and comparison, so that a lookup does not allocate.
+     */
+    private static final class FoldedCaseIndex {
+
+        private final String[] keys;
+        private final int[] indices;
+        private final int mask;
+
+        private FoldedCaseIndex(final int maxSize) {
+            final int capacity = Integer.highestOneBit(Math.max(maxSize, 1) * 2 - 1) << 1;
+            this.keys = new String[capacity];
+            this.indices = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private void putIfAbsent(final String value, final int index) {
+            int slot = hash(value) & mask;
+            while (keys[slot] != null) {
+                if (matchesFolded(keys[slot], value)) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = foldCase(value);
+            indices[slot] = index;
+        }
+
+        /**
+         * @return The index for the given value, which must not contain surrogates, or -1 if there is none.
+         */
+        private int get(final String value) {
+            for (int slot = hash(value) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (matchesFolded(keys[slot], value)) {
+                    return indices[slot];
+                }
+            }
+            return -1;
+        }
+
+        private static int hash(final String value) {
+            int hash = 0;
+            for (int i = 0; i < value.length(); i++) {
+                hash = 31 * hash + foldCase(value.charAt(i));
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean matchesFolded(final String folded, final String value) {
+            if (folded.length() != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < folded.length(); i++) {
+                if (folded.charAt(i) != foldCase(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
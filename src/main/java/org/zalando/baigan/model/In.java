@@ -42,6 +42,10 @@ public class In extends ConditionType {
         this.inValue = inValue;
     }
 
+    Set<String> getInValue() {
+        return inValue;
+    }
+
     @Override
     public boolean eval(final String forValue) {
         return inValue.contains(forValue);
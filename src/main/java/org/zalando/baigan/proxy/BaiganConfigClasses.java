@@ -4,7 +4,13 @@ import java.lang.reflect.Type;
 import java.util.Map;
 
 public class BaiganConfigClasses {
+    /**
+     * The key ID of keys that are not declared by any {@link org.zalando.baigan.annotation.BaiganConfig} interface.
+     */
+    public static final int UNKNOWN_KEY_ID = -1;
+
     private Map<String, Type> configTypesByKey;
+    private Map<String, Integer> keyIds = Map.of();
 
     public BaiganConfigClasses() {}
 
@@ -15,4 +21,22 @@ public class BaiganConfigClasses {
     public Map<String, Type> getConfigTypesByKey() {
         return configTypesByKey;
     }
+
+    /**
+     * @param keyIds Dense IDs of the known configuration keys, from 0 to the number of keys - 1.
+     */
+    public void setKeyIds(Map<String, Integer> keyIds) {
+        this.keyIds = Map.copyOf(keyIds);
+    }
+
+    public Map<String, Integer> getKeyIds() {
+        return keyIds;
+    }
+
+    /**
+     * @return The ID of the given key, or {@link #UNKNOWN_KEY_ID} if the key is unknown.
+     */
+    public int getKeyId(String key) {
+        return keyIds.getOrDefault(key, UNKNOWN_KEY_ID);
+    }
 }
@@ -17,6 +17,7 @@
 package org.zalando.baigan.proxy;
 
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Primitives;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
@@ -39,11 +40,14 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toMap;
 import static org.zalando.baigan.proxy.ProxyUtils.createKey;
+import static org.zalando.baigan.proxy.ProxyUtils.isSupportedReturnType;
 
 /**
  * ImportBeanDefinitionRegistrar implementation that finds the
@@ -57,6 +61,8 @@ import static org.zalando.baigan.proxy.ProxyUtils.createKey;
 public class ConfigurationBeanDefinitionRegistrar
         implements ImportBeanDefinitionRegistrar {
 
+    private static final String PROXY_ENGINE_ATTRIBUTE = "proxyEngine";
+
     @Override
     public void registerBeanDefinitions(
             AnnotationMetadata importingClassMetadata,
@@ -85,11 +91,16 @@ public class ConfigurationBeanDefinitionRegistrar
                 .filter(StringUtils::hasText)
                 .collect(Collectors.toSet());
 
-        createAndRegisterBeanDefinitions(saneSet, registry);
+        final ProxyEngine proxyEngine = annotationAttributes.containsKey(PROXY_ENGINE_ATTRIBUTE)
+                ? annotationAttributes.<ProxyEngine>getEnum(PROXY_ENGINE_ATTRIBUTE)
+                : ProxyEngine.REFLECTION;
+
+        createAndRegisterBeanDefinitions(saneSet, proxyEngine, registry);
 
     }
 
     private void createAndRegisterBeanDefinitions(final Set<String> packages,
+                                                  final ProxyEngine proxyEngine,
                                                   final BeanDefinitionRegistry registry) {
 
         final ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateInterfaceProvider();
@@ -102,7 +113,7 @@ public class ConfigurationBeanDefinitionRegistrar
             for (BeanDefinition definition : candidates) {
                 if (definition instanceof GenericBeanDefinition) {
                     final GenericBeanDefinition genericDefinition = (GenericBeanDefinition) definition;
-                    final Class<?> baiganConfigClass = registerAsBean(registry, genericDefinition);
+                    final Class<?> baiganConfigClass = registerAsBean(registry, genericDefinition, proxyEngine);
                     baiganConfigClasses.add(baiganConfigClass);
                 } else {
                     throw new IllegalStateException(
@@ -120,36 +131,51 @@ public class ConfigurationBeanDefinitionRegistrar
         GenericBeanDefinition beanDefinition = new GenericBeanDefinition();
         beanDefinition.setBeanClass(BaiganConfigClasses.class);
         beanDefinition.getPropertyValues().add("configTypesByKey", configTypesByKey);
+        beanDefinition.getPropertyValues().add("keyIds", assignKeyIds(configTypesByKey.keySet()));
         registry.registerBeanDefinition("baiganConfigClasses", beanDefinition);
     }
 
+    /**
+     * Assigns dense IDs to the keys in their natural order, so that snapshots can store configurations in arrays.
+     */
+    private static Map<String, Integer> assignKeyIds(final Set<String> keys) {
+        final List<String> sortedKeys = keys.stream().sorted().collect(Collectors.toList());
+        return IntStream.range(0, sortedKeys.size()).boxed().collect(toMap(sortedKeys::get, Function.identity()));
+    }
+
     private ConfigType mapToConfigType(final Class<?> clazz, final Method method) {
         final String key = createKey(clazz, method);
         final Class<?> returnType = method.getReturnType();
-        if (returnType.isPrimitive()) {
+        if (!isSupportedReturnType(returnType)) {
             throw new IllegalArgumentException("Config " + key + " has an illegal return type " + returnType +
-                    ". Primitives are not supported as return type!");
+                    ". Of the primitives, only boolean, int, long and double are supported as return type!");
+        }
+        if (returnType.isPrimitive()) {
+            return new ConfigType(key, Primitives.wrap(returnType));
         }
         return new ConfigType(key, method.getGenericReturnType());
     }
 
-    private Class<?> registerAsBean(final BeanDefinitionRegistry registry, final GenericBeanDefinition genericDefinition) {
+    private Class<?> registerAsBean(final BeanDefinitionRegistry registry, final GenericBeanDefinition genericDefinition,
+                                    final ProxyEngine proxyEngine) {
         try {
             final Class<?> interfaceToImplement = genericDefinition.resolveBeanClass(
                     registry.getClass().getClassLoader()
             );
-            registerAsBean(registry, interfaceToImplement);
+            registerAsBean(registry, interfaceToImplement, proxyEngine);
             return interfaceToImplement;
         } catch (final ClassNotFoundException e) {
             throw new IllegalStateException("Unable to register annotated interface as configuration bean", e);
         }
     }
 
-    private void registerAsBean(final BeanDefinitionRegistry registry, final Class<?> interfaceToImplement) {
+    private void registerAsBean(final BeanDefinitionRegistry registry, final Class<?> interfaceToImplement,
+                                final ProxyEngine proxyEngine) {
         final BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(
                 ConfigurationServiceBeanFactory.class
         );
         builder.addPropertyValue("candidateInterface", interfaceToImplement);
+        builder.addPropertyValue("proxyEngine", proxyEngine);
 
         final String factoryBeanName = interfaceToImplement.getName() + "BaiganProxyConfigurationFactoryBean";
         registry.registerBeanDefinition(factoryBeanName, builder.getBeanDefinition());
@@ -4,8 +4,10 @@ import com.google.common.reflect.Reflection;
 import org.springframework.beans.factory.config.AbstractFactoryBean;
 import org.zalando.baigan.annotation.BaiganConfig;
 import org.zalando.baigan.proxy.handler.ConfigurationMethodInvocationHandler;
+import org.zalando.baigan.proxy.handler.ContextAwareConfigurationMethodInvocationHandler;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Factory class that creates the proxy implementations for the interfaces
@@ -17,10 +19,16 @@ public class ConfigurationServiceBeanFactory extends AbstractFactoryBean<Object>
 
     private Class<?> candidateInterface;
 
+    private ProxyEngine proxyEngine = ProxyEngine.REFLECTION;
+
     public void setCandidateInterface(final Class<?> candidateInterface) {
         this.candidateInterface = candidateInterface;
     }
 
+    public void setProxyEngine(final ProxyEngine proxyEngine) {
+        this.proxyEngine = proxyEngine;
+    }
+
     protected Object createInstance() {
 
         final BaiganConfig beanConfig = candidateInterface.getAnnotation(BaiganConfig.class);
@@ -29,7 +37,15 @@ public class ConfigurationServiceBeanFactory extends AbstractFactoryBean<Object>
                         + BaiganConfig.class.getName());
 
         final ConfigurationMethodInvocationHandler handler = getBeanFactory().getBean(ConfigurationMethodInvocationHandler.class);
-        return Reflection.newProxy(candidateInterface, handler);
+        if (proxyEngine == ProxyEngine.GENERATED) {
+            checkState(handler instanceof ContextAwareConfigurationMethodInvocationHandler,
+                    "The generated proxy engine requires the invocation handler to be a "
+                            + ContextAwareConfigurationMethodInvocationHandler.class.getName());
+            final ContextAwareConfigurationMethodInvocationHandler contextAwareHandler =
+                    (ContextAwareConfigurationMethodInvocationHandler) handler;
+            return GeneratedProxyFactory.newInstance(candidateInterface, contextAwareHandler.resolvers(candidateInterface));
+        }
+        return Reflection.newProxy(candidateInterface, handler.forInterface(candidateInterface));
     }
 
     @Override
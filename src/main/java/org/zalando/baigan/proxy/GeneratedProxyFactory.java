@@ -0,0 +1,211 @@
+package org.zalando.baigan.proxy;
+
+import com.google.common.primitives.Primitives;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.zalando.baigan.proxy.handler.ConfigurationResolver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.zalando.baigan.proxy.ProxyUtils.isSupportedReturnType;
+
+/**
+ * Generates a concrete implementation class for a configuration interface, as used by
+ * {@link ProxyEngine#GENERATED}.
+ * <p>
+ * The generated class holds one {@link ConfigurationResolver} per method in a final field. Each method loads
+ * its resolver and calls it with the arguments that may carry a context provider, so the call site of a
+ * configuration method is linked statically to the lookup of its key. The class is defined in the package of
+ * the interface, which allows implementing package-private interfaces.
+ */
+final class GeneratedProxyFactory {
+
+    private static final String CLASS_NAME_INFIX = "$$BaiganConfig$$";
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String RESOLVER = Type.getInternalName(ConfigurationResolver.class);
+    private static final String RESOLVER_DESCRIPTOR = Type.getDescriptor(ConfigurationResolver.class);
+    private static final String RESOLVER_ARRAY_DESCRIPTOR = Type.getDescriptor(ConfigurationResolver[].class);
+    private static final String[] RESOLVE_DESCRIPTORS = {
+            "()Ljava/lang/Object;",
+            "(Ljava/lang/Object;)Ljava/lang/Object;",
+            "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;"
+    };
+    private static final String RESOLVE_VARARGS_DESCRIPTOR = "([Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private GeneratedProxyFactory() {
+    }
+
+    static <T> T newInstance(final Class<T> configInterface, final Map<Method, ConfigurationResolver> resolvers) {
+        checkArgument(configInterface.isInterface(), "%s is not an interface", configInterface);
+
+        final List<Method> methods = new ArrayList<>();
+        final List<ConfigurationResolver> methodResolvers = new ArrayList<>();
+        final Set<String> signatures = new HashSet<>();
+        resolvers.forEach((method, resolver) -> {
+            // the same method may be inherited from several interfaces
+            if (!isObjectMethod(method) && signatures.add(method.getName() + Type.getMethodDescriptor(method))) {
+                methods.add(method);
+                methodResolvers.add(resolver);
+            }
+        });
+
+        final String className = configInterface.getName() + CLASS_NAME_INFIX + CLASS_COUNTER.incrementAndGet();
+        final byte[] bytecode = generate(className.replace('.', '/'), configInterface, methods, methodResolvers);
+        try {
+            final Class<?> implementation = MethodHandles.privateLookupIn(configInterface, MethodHandles.lookup())
+                    .defineClass(bytecode);
+            final Object instance = implementation.getConstructor(ConfigurationResolver[].class)
+                    .newInstance((Object) methodResolvers.toArray(new ConfigurationResolver[0]));
+            return configInterface.cast(instance);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to generate the implementation of " + configInterface.getName(), e);
+        }
+    }
+
+    private static byte[] generate(final String className, final Class<?> configInterface, final List<Method> methods,
+                                   final List<ConfigurationResolver> resolvers) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+                className, null, OBJECT, new String[]{Type.getInternalName(configInterface)});
+
+        for (int i = 0; i < methods.size(); i++) {
+            writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, fieldName(i), RESOLVER_DESCRIPTOR, null, null)
+                    .visitEnd();
+        }
+        generateConstructor(writer, className, methods.size());
+        for (int i = 0; i < methods.size(); i++) {
+            generateMethod(writer, className, i, methods.get(i),
+                    resolvers.get(i).getDescriptor().getContextProviderIndices());
+        }
+        generateToString(writer, configInterface);
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void generateConstructor(final ClassWriter writer, final String className, final int resolverCount) {
+        final MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                "(" + RESOLVER_ARRAY_DESCRIPTOR + ")V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        for (int i = 0; i < resolverCount; i++) {
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(constructor, i);
+            constructor.visitInsn(Opcodes.AALOAD);
+            constructor.visitFieldInsn(Opcodes.PUTFIELD, className, fieldName(i), RESOLVER_DESCRIPTOR);
+        }
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+    }
+
+    private static void generateMethod(final ClassWriter writer, final String className, final int index,
+                                       final Method method, final int[] contextIndices) {
+        final Class<?> returnType = method.getReturnType();
+        checkArgument(isSupportedReturnType(returnType), "Method %s has the unsupported return type %s", method,
+                returnType);
+
+        final MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, method.getName(),
+                Type.getMethodDescriptor(method), null, null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitFieldInsn(Opcodes.GETFIELD, className, fieldName(index), RESOLVER_DESCRIPTOR);
+
+        final int[] contextSlots = localVariableSlots(method, contextIndices);
+        if (contextSlots.length < RESOLVE_DESCRIPTORS.length) {
+            for (final int slot : contextSlots) {
+                visitor.visitVarInsn(Opcodes.ALOAD, slot);
+            }
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RESOLVER, "resolve",
+                    RESOLVE_DESCRIPTORS[contextSlots.length], false);
+        } else {
+            pushInt(visitor, contextSlots.length);
+            visitor.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT);
+            for (int i = 0; i < contextSlots.length; i++) {
+                visitor.visitInsn(Opcodes.DUP);
+                pushInt(visitor, i);
+                visitor.visitVarInsn(Opcodes.ALOAD, contextSlots[i]);
+                visitor.visitInsn(Opcodes.AASTORE);
+            }
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, RESOLVER, "resolve", RESOLVE_VARARGS_DESCRIPTOR, false);
+        }
+
+        if (returnType.isPrimitive()) {
+            // the resolver returns the wrapped value, or false or zero if the configuration is missing
+            final String wrapperType = Type.getInternalName(Primitives.wrap(returnType));
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, wrapperType);
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapperType, returnType.getName() + "Value",
+                    "()" + Type.getDescriptor(returnType), false);
+        } else if (returnType != Object.class) {
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(returnType));
+        }
+        visitor.visitInsn(Type.getType(returnType).getOpcode(Opcodes.IRETURN));
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    private static void generateToString(final ClassWriter writer, final Class<?> configInterface) {
+        final MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, "toString", "()Ljava/lang/String;",
+                null, null);
+        visitor.visitCode();
+        visitor.visitLdcInsn("Baigan configuration " + configInterface.getName());
+        visitor.visitInsn(Opcodes.ARETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    /**
+     * Maps the given argument positions of the method to their local variable slots.
+     */
+    private static int[] localVariableSlots(final Method method, final int[] argumentIndices) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final int[] slotsByIndex = new int[parameterTypes.length];
+        int slot = 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            slotsByIndex[i] = slot;
+            slot += Type.getType(parameterTypes[i]).getSize();
+        }
+        final int[] slots = new int[argumentIndices.length];
+        for (int i = 0; i < argumentIndices.length; i++) {
+            slots[i] = slotsByIndex[argumentIndices[i]];
+        }
+        return slots;
+    }
+
+    private static boolean isObjectMethod(final Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static String fieldName(final int index) {
+        return "resolver" + index;
+    }
+
+    private static void pushInt(final MethodVisitor visitor, final int value) {
+        if (value <= 5) {
+            visitor.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            visitor.visitIntInsn(Opcodes.BIPUSH, value);
+        } else {
+            visitor.visitIntInsn(Opcodes.SIPUSH, value);
+        }
+    }
+}
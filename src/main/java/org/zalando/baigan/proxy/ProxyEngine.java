@@ -0,0 +1,23 @@
+package org.zalando.baigan.proxy;
+
+/**
+ * The mechanism used to implement the interfaces annotated with
+ * {@link org.zalando.baigan.annotation.BaiganConfig}.
+ *
+ * @see org.zalando.baigan.annotation.ConfigurationServiceScan#proxyEngine()
+ */
+public enum ProxyEngine {
+
+    /**
+     * Implements the interfaces with {@link java.lang.reflect.Proxy} instances dispatching to a
+     * {@link org.zalando.baigan.proxy.handler.ConfigurationMethodInvocationHandler}. This is the default.
+     */
+    REFLECTION,
+
+    /**
+     * Generates a concrete implementation class per interface at startup. Each method calls the resolver of
+     * its configuration key directly, without boxing the arguments into an array or dispatching through an
+     * invocation handler, which allows the JIT to inline the whole lookup.
+     */
+    GENERATED
+}
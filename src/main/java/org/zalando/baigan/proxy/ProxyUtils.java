@@ -20,6 +20,7 @@ import com.google.common.base.CaseFormat;
 import com.google.common.base.Strings;
 
 import java.lang.reflect.Method;
+import java.util.Set;
 
 /**
  * The class to contain utility methods used in proxying configuration beans.
@@ -30,6 +31,10 @@ import java.lang.reflect.Method;
 public class ProxyUtils {
     private static final String NAMESPACE_SEPARATOR = ".";
 
+    private static final Set<Class<?>> SUPPORTED_PRIMITIVE_TYPES = Set.of(
+            boolean.class, int.class, long.class, double.class
+    );
+
     public static String createKey(final Class<?> clazz, Method method) {
         final String methodName = method.getName();
         final String nameSpace = clazz.getSimpleName();
@@ -38,6 +43,15 @@ public class ProxyUtils {
                 + ProxyUtils.dottify(methodName);
     }
 
+    /**
+     * Whether the given return type of a configuration method is supported. Of the primitive types, only
+     * {@code boolean}, {@code int}, {@code long} and {@code double} are supported; their configurations are
+     * deserialized into the corresponding wrapper type.
+     */
+    public static boolean isSupportedReturnType(final Class<?> returnType) {
+        return !returnType.isPrimitive() || SUPPORTED_PRIMITIVE_TYPES.contains(returnType);
+    }
+
     private static String dottify(final String text) {
 
         if (Strings.isNullOrEmpty(text)) {
@@ -0,0 +1,114 @@
+package org.zalando.baigan.proxy.handler;
+
+import org.springframework.stereotype.Component;
+import org.zalando.baigan.annotation.BaiganConfig;
+import org.zalando.baigan.context.ContextProvider;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Evaluates several configurations for the same context at once, e.g. all feature flags needed by a request.
+ * Compared to calling the methods of configuration interfaces one by one, the context providers are consulted once
+ * per context param instead of once per configuration, and all values are read from the same snapshot.
+ * <p>
+ * Batches that are evaluated repeatedly should be created once with {@link #batch(Collection)} or
+ * {@link #batch(Class)} and kept, so that their keys are resolved only once.
+ */
+@Component
+public class BaiganEvaluator {
+
+    private final ContextAwareConfigurationMethodInvocationHandler handler;
+
+    public BaiganEvaluator(final ContextAwareConfigurationMethodInvocationHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Creates a batch of the given keys, without checking the types of their values. Duplicate keys are evaluated
+     * once.
+     */
+    @Nonnull
+    public EvaluationBatch batch(final Collection<String> keys) {
+        final List<ConfigurationResolver> resolvers = new ArrayList<>(keys.size());
+        for (final String key : new LinkedHashSet<>(keys)) {
+            resolvers.add(resolver(key));
+        }
+        return new EvaluationBatch(resolvers, handler);
+    }
+
+    /**
+     * Creates a batch of the keys of all methods of the given configuration interface, in the alphabetical order of
+     * the keys. Values that do not match the return type of their method are treated like missing values.
+     *
+     * @throws IllegalArgumentException if the interface is not annotated with {@link BaiganConfig}
+     */
+    @Nonnull
+    public EvaluationBatch batch(final Class<?> configInterface) {
+        checkArgument(configInterface.isInterface() && configInterface.isAnnotationPresent(BaiganConfig.class),
+                "%s is not an interface annotated with @BaiganConfig", configInterface);
+        final List<ConfigurationResolver> resolvers = new ArrayList<>(handler.resolvers(configInterface).values());
+        resolvers.sort(Comparator.comparing(resolver -> resolver.getDescriptor().getKey()));
+        final Set<String> keys = new LinkedHashSet<>();
+        resolvers.removeIf(resolver -> !keys.add(resolver.getDescriptor().getKey()));
+        return new EvaluationBatch(resolvers, handler);
+    }
+
+    /**
+     * Evaluates the given keys once. See {@link #batch(Collection)}.
+     */
+    @Nonnull
+    public EvaluationResult evaluateAll(final Collection<String> keys, final ContextProvider... contextProviders) {
+        return batch(keys).evaluate(contextProviders);
+    }
+
+    /**
+     * Evaluates the keys of all methods of the given configuration interface once. See {@link #batch(Class)}.
+     */
+    @Nonnull
+    public EvaluationResult evaluateAll(final Class<?> configInterface, final ContextProvider... contextProviders) {
+        return batch(configInterface).evaluate(contextProviders);
+    }
+
+    /**
+     * Evaluates the given key for many contexts, e.g. for all records of a batch job. The contexts are given in
+     * columnar form: each context param maps to an array holding its value in each context, or {@code null} if it is
+     * not set there. The configuration is looked up once and its conditions are evaluated directly against the
+     * columns, without building a context per record.
+     *
+     * @param contextColumns The values of each context param, all of the same length
+     * @return The value for each context, in the order of the columns
+     * @throws IllegalArgumentException if there are no columns or they differ in length
+     */
+    @Nonnull
+    public Object[] evaluateColumns(final String key, final Map<String, String[]> contextColumns) {
+        return resolver(key).resolveColumns(new ContextColumns(contextColumns), null, 1);
+    }
+
+    /**
+     * Like {@link #evaluateColumns(String, Map)}, but splits the contexts into up to {@code parallelism} ranges that
+     * are evaluated concurrently, one of them by the calling thread and the others by the given executor.
+     *
+     * @throws IllegalArgumentException if there are no columns, they differ in length or the parallelism is not
+     *                                  positive
+     */
+    @Nonnull
+    public Object[] evaluateColumns(final String key, final Map<String, String[]> contextColumns,
+                                    final Executor executor, final int parallelism) {
+        checkArgument(parallelism > 0, "The parallelism must be positive, but was %s", parallelism);
+        return resolver(key).resolveColumns(new ContextColumns(contextColumns), executor, parallelism);
+    }
+
+    private ConfigurationResolver resolver(final String key) {
+        return new ConfigurationResolver(ConfigurationMethodDescriptor.of(key, Object.class), handler);
+    }
+}
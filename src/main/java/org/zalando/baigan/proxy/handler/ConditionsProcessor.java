@@ -21,8 +21,6 @@ import java.util.Map;
 import javax.annotation.Nonnull;
 
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
-import org.zalando.baigan.model.Condition;
 import org.zalando.baigan.model.Configuration;
 
 /**
@@ -32,29 +30,13 @@ import org.zalando.baigan.model.Configuration;
 @Component
 public class ConditionsProcessor {
 
+    /**
+     * Evaluates the conditions of the configuration in order and returns the value of the first one matching the
+     * context, or the default value if none matches.
+     */
     @Nonnull
     public <T> T process(Configuration<T> configuration,
             Map<String, String> context) {
-
-        T value = configuration.getDefaultValue();
-
-        if (CollectionUtils.isEmpty(configuration.getConditions())) {
-            return value;
-        }
-
-        for (Condition<T> condition : configuration.getConditions()) {
-
-            final String conditionalContextParamValue = context
-                    .get(condition.getParamName());
-            final boolean result = condition.getConditionType()
-                    .eval(conditionalContextParamValue);
-
-            // Return if any of the condition evaluates to true from the ordered
-            // set of conditions.
-            if (result) {
-                return condition.getValue();
-            }
-        }
-        return value;
+        return configuration.getEvaluationPlan().evaluate(context);
     }
 }
@@ -0,0 +1,153 @@
+package org.zalando.baigan.proxy.handler;
+
+import org.zalando.baigan.context.ContextProvider;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A handle to the value of a single configuration key, created once by a {@link ConfigHandleFactory} and then used
+ * to resolve the value as often as needed.
+ * <p>
+ * A handle resolves its value like the method of a configuration interface would, but is called directly: the ID of
+ * its key is resolved on first use and the configuration is then looked up by that ID in the current snapshot of the
+ * repository, without hashing the key or allocating an {@link java.util.Optional}. Values that do not depend on the
+ * context are cached per snapshot.
+ * <p>
+ * If the key has no configuration, or the value has an unexpected type, {@link #get()} returns {@code null}, while
+ * the primitive specializations return {@code false} or zero.
+ *
+ * @param <T> The type of the value
+ */
+public final class ConfigHandle<T> {
+
+    private final ConfigurationResolver resolver;
+
+    ConfigHandle(final ConfigurationResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    public String getKey() {
+        return resolver.getDescriptor().getKey();
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get() {
+        return (T) resolver.resolve();
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get(final ContextProvider contextProvider) {
+        return (T) resolver.resolve((Object) contextProvider);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get(final ContextProvider... contextProviders) {
+        return (T) resolver.resolve((Object[]) contextProviders);
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Boolean}
+     */
+    public boolean getBoolean() {
+        return toBoolean(resolveAs(Boolean.class));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Boolean}
+     */
+    public boolean getBoolean(final ContextProvider... contextProviders) {
+        return toBoolean(resolveAs(Boolean.class, contextProviders));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Integer}
+     */
+    public int getInt() {
+        return toInt(resolveAs(Integer.class));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Integer}
+     */
+    public int getInt(final ContextProvider... contextProviders) {
+        return toInt(resolveAs(Integer.class, contextProviders));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Long}
+     */
+    public long getLong() {
+        return toLong(resolveAs(Long.class));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Long}
+     */
+    public long getLong(final ContextProvider... contextProviders) {
+        return toLong(resolveAs(Long.class, contextProviders));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Double}
+     */
+    public double getDouble() {
+        return toDouble(resolveAs(Double.class));
+    }
+
+    /**
+     * @throws IllegalStateException if the type of this handle is not {@link Double}
+     */
+    public double getDouble(final ContextProvider... contextProviders) {
+        return toDouble(resolveAs(Double.class, contextProviders));
+    }
+
+    @Override
+    public String toString() {
+        return ConfigHandle.class.getSimpleName() + "[" + resolver.getDescriptor() + "]";
+    }
+
+    @Nullable
+    private Object resolveAs(final Class<?> type) {
+        checkType(type);
+        return resolver.resolve();
+    }
+
+    @Nullable
+    private Object resolveAs(final Class<?> type, final ContextProvider[] contextProviders) {
+        checkType(type);
+        switch (contextProviders.length) {
+            case 0:
+                return resolver.resolve();
+            case 1:
+                return resolver.resolve((Object) contextProviders[0]);
+            default:
+                return resolver.resolve((Object[]) contextProviders);
+        }
+    }
+
+    private void checkType(final Class<?> type) {
+        final Class<?> returnType = resolver.getDescriptor().getReturnType();
+        checkState(returnType == type, "The configuration %s is of type %s, not %s", getKey(), returnType, type);
+    }
+
+    private static boolean toBoolean(@Nullable final Object value) {
+        return value != null && (Boolean) value;
+    }
+
+    private static int toInt(@Nullable final Object value) {
+        return value == null ? 0 : (Integer) value;
+    }
+
+    private static long toLong(@Nullable final Object value) {
+        return value == null ? 0L : (Long) value;
+    }
+
+    private static double toDouble(@Nullable final Object value) {
+        return value == null ? 0.0 : (Double) value;
+    }
+}
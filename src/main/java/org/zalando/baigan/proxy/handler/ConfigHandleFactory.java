@@ -0,0 +1,86 @@
+package org.zalando.baigan.proxy.handler;
+
+import com.google.common.base.Defaults;
+import com.google.common.reflect.AbstractInvocationHandler;
+import com.google.common.reflect.Reflection;
+import com.google.common.reflect.TypeToken;
+import org.springframework.stereotype.Component;
+import org.zalando.baigan.annotation.BaiganConfig;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Creates {@link ConfigHandle}s, either for a method of a {@link BaiganConfig} interface or for a key and type.
+ * Handles are meant to be created once, e.g. when a component is initialized, and kept for the lifetime of the
+ * component.
+ */
+@Component
+public class ConfigHandleFactory {
+
+    private final ContextAwareConfigurationMethodInvocationHandler handler;
+
+    public ConfigHandleFactory(final ContextAwareConfigurationMethodInvocationHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Creates the handle of the method of a configuration interface that the given function invokes, e.g.
+     * {@code of(ExpressFeature.class, ExpressFeature::enabled)}. The function is applied once to a proxy that
+     * records the invoked method; for methods with context parameters, e.g.
+     * {@code of(ExpressFeature.class, feature -> feature.enabled(null))}, the arguments are ignored.
+     *
+     * @throws IllegalArgumentException if the interface is not annotated with {@link BaiganConfig}, or the function
+     *                                  does not invoke exactly one of its methods
+     */
+    @Nonnull
+    public <I, T> ConfigHandle<T> of(final Class<I> configInterface, final Function<? super I, ? extends T> method) {
+        checkArgument(configInterface.isInterface() && configInterface.isAnnotationPresent(BaiganConfig.class),
+                "%s is not an interface annotated with @BaiganConfig", configInterface);
+        final MethodRecorder recorder = new MethodRecorder();
+        method.apply(Reflection.newProxy(configInterface, recorder));
+        checkArgument(recorder.method != null, "The function does not invoke a method of %s", configInterface);
+        return new ConfigHandle<>(new ConfigurationResolver(
+                ConfigurationMethodDescriptor.of(configInterface, recorder.method), handler));
+    }
+
+    /**
+     * Creates the handle of a key of the given type. For the configuration to be loaded by the file system and S3
+     * repositories, the key has to be declared by a method of a {@link BaiganConfig} interface returning that type.
+     */
+    @Nonnull
+    public <T> ConfigHandle<T> of(final String key, final Class<T> type) {
+        return new ConfigHandle<>(new ConfigurationResolver(
+                ConfigurationMethodDescriptor.of(checkNotNull(key, "key is required"), type), handler));
+    }
+
+    /**
+     * Creates the handle of a key of a possibly generic type. As for methods of configuration interfaces, only the
+     * raw type of the value is checked.
+     *
+     * @see #of(String, Class)
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <T> ConfigHandle<T> of(final String key, final Type type) {
+        return (ConfigHandle<T>) of(key, TypeToken.of(type).getRawType());
+    }
+
+    private static final class MethodRecorder extends AbstractInvocationHandler {
+
+        private Method method;
+
+        @Override
+        protected Object handleInvocation(final Object proxy, final Method method, final Object[] args) {
+            checkArgument(this.method == null, "The function invokes more than one method: %s and %s",
+                    this.method, method);
+            this.method = method;
+            return Defaults.defaultValue(method.getReturnType());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.zalando.baigan.proxy.handler;
+
+import com.google.common.base.Defaults;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Primitives;
+import org.zalando.baigan.context.ContextProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.IntStream;
+
+import static org.zalando.baigan.proxy.ProxyUtils.createKey;
+
+/**
+ * Describes a single method of a configuration interface: the configuration key it maps to, its return type
+ * and the positions of the arguments that may carry a {@link ContextProvider}.
+ * <p>
+ * Descriptors are computed once per interface when the proxy is created, so that an invocation neither
+ * derives the key again nor inspects the argument types.
+ */
+public final class ConfigurationMethodDescriptor {
+
+    private static final int[] NO_INDICES = new int[0];
+
+    private final String key;
+    private final Class<?> returnType;
+    private final Object missingValue;
+    private final int[] contextProviderIndices;
+
+    private ConfigurationMethodDescriptor(final String key, final Class<?> returnType,
+                                          final int[] contextProviderIndices) {
+        this.key = key;
+        this.returnType = Primitives.wrap(returnType);
+        this.missingValue = Defaults.defaultValue(returnType);
+        this.contextProviderIndices = contextProviderIndices;
+    }
+
+    /**
+     * Creates the descriptor for the given method as seen through the given configuration interface. The
+     * interface is relevant for inherited methods, as the key is derived from the interface the proxy implements.
+     * <p>
+     * An argument is considered a context argument if its declared type is a {@link ContextProvider} or a
+     * supertype of it, e.g. {@link Object}. The latter are checked at invocation time.
+     */
+    @Nonnull
+    public static ConfigurationMethodDescriptor of(final Class<?> configInterface, final Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final int[] contextProviderIndices = IntStream.range(0, parameterTypes.length)
+                .filter(i -> ContextProvider.class.isAssignableFrom(parameterTypes[i])
+                        || parameterTypes[i].isAssignableFrom(ContextProvider.class))
+                .toArray();
+        return new ConfigurationMethodDescriptor(
+                createKey(configInterface, method).intern(),
+                method.getReturnType(),
+                contextProviderIndices.length == 0 ? NO_INDICES : contextProviderIndices
+        );
+    }
+
+    /**
+     * Creates the descriptor of a configuration that is not accessed through a method, and thus receives its
+     * context providers explicitly, e.g. by a {@link ConfigHandle}.
+     */
+    @Nonnull
+    public static ConfigurationMethodDescriptor of(final String key, final Class<?> returnType) {
+        return new ConfigurationMethodDescriptor(key.intern(), returnType, NO_INDICES);
+    }
+
+    /**
+     * Creates the descriptors for all instance methods of the given configuration interface, including inherited
+     * ones.
+     */
+    @Nonnull
+    public static Map<Method, ConfigurationMethodDescriptor> dispatchTable(final Class<?> configInterface) {
+        final ImmutableMap.Builder<Method, ConfigurationMethodDescriptor> builder = ImmutableMap.builder();
+        for (final Method method : configInterface.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                builder.put(method, of(configInterface, method));
+            }
+        }
+        return builder.build();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The return type of the method, with primitive types replaced by their wrapper types.
+     */
+    public Class<?> getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * @return The value returned if the configuration is missing or has a value of the wrong type: {@code null}, or
+     * {@code false} or zero for primitive return types.
+     */
+    @Nullable
+    public Object getMissingValue() {
+        return missingValue;
+    }
+
+    /**
+     * @return The positions of the arguments that may carry a {@link ContextProvider}, in ascending order.
+     */
+    public int[] getContextProviderIndices() {
+        return contextProviderIndices.clone();
+    }
+
+    int[] contextProviderIndices() {
+        return contextProviderIndices;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ConfigurationMethodDescriptor.class.getSimpleName() + "[", "]")
+                .add("key='" + key + "'")
+                .add("returnType=" + returnType)
+                .add("contextProviderArguments=" + contextProviderIndices.length)
+                .toString();
+    }
+}
@@ -24,4 +24,12 @@ import com.google.common.reflect.AbstractInvocationHandler;
 
 public abstract class ConfigurationMethodInvocationHandler
         extends AbstractInvocationHandler {
-}
\ No newline at end of file
+
+    /**
+     * Returns the handler to be used by the proxy of the given configuration interface. Implementations may
+     * return a dedicated handler that precomputes per-method state. By default, this handler is shared.
+     */
+    public ConfigurationMethodInvocationHandler forInterface(final Class<?> configInterface) {
+        return this;
+    }
+}
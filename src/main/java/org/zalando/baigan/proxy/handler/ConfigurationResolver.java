@@ -0,0 +1,179 @@
+package org.zalando.baigan.proxy.handler;
+
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Resolves the value of the configuration behind a single method of a configuration interface.
+ * <p>
+ * Proxies created by the {@link org.zalando.baigan.proxy.ProxyEngine#GENERATED} engine hold one resolver per
+ * method and call it directly, passing only the arguments that may carry a {@link ContextProvider}, in the order
+ * they are declared.
+ */
+public final class ConfigurationResolver {
+
+    private final ConfigurationMethodDescriptor descriptor;
+    private final ContextAwareConfigurationMethodInvocationHandler handler;
+
+    private static final int UNRESOLVED_KEY_ID = Integer.MIN_VALUE;
+
+    /**
+     * The ID of the key, resolved on first use as the key IDs are not yet available when proxies are created.
+     */
+    private int keyId = UNRESOLVED_KEY_ID;
+
+    /**
+     * The value of the configuration in the snapshot it was resolved from, if it does not depend on the context.
+     */
+    private volatile ConstantValue constantValue;
+
+    private volatile Class<?>[] validatedSignature;
+
+    ConfigurationResolver(final ConfigurationMethodDescriptor descriptor,
+                          final ContextAwareConfigurationMethodInvocationHandler handler) {
+        this.descriptor = descriptor;
+        this.handler = handler;
+    }
+
+    public ConfigurationMethodDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Resolves the value for an invocation with all arguments of the method, as passed to an
+     * {@link java.lang.reflect.InvocationHandler}.
+     */
+    @Nullable
+    public Object resolveInvocation(final Object[] args) {
+        final int[] indices = descriptor.contextProviderIndices();
+        if (indices.length == 0) {
+            return resolve();
+        }
+        final ContextProviderMap context = ContextProviderMap.acquire();
+        try {
+            for (final int index : indices) {
+                context.addIfContextProvider(args[index]);
+            }
+            return handler.resolve(this, context);
+        } finally {
+            context.release();
+        }
+    }
+
+    @Nullable
+    public Object resolve() {
+        return handler.resolve(this, null);
+    }
+
+    @Nullable
+    public Object resolve(final Object contextArgument) {
+        if (!(contextArgument instanceof ContextProvider)) {
+            return resolve();
+        }
+        final ContextProviderMap context = ContextProviderMap.acquire();
+        try {
+            context.addIfContextProvider(contextArgument);
+            return handler.resolve(this, context);
+        } finally {
+            context.release();
+        }
+    }
+
+    @Nullable
+    public Object resolve(final Object firstContextArgument, final Object secondContextArgument) {
+        final ContextProviderMap context = ContextProviderMap.acquire();
+        try {
+            context.addIfContextProvider(firstContextArgument);
+            context.addIfContextProvider(secondContextArgument);
+            return handler.resolve(this, context);
+        } finally {
+            context.release();
+        }
+    }
+
+    @Nullable
+    public Object resolve(final Object... contextArguments) {
+        final ContextProviderMap context = ContextProviderMap.acquire();
+        try {
+            for (final Object contextArgument : contextArguments) {
+                context.addIfContextProvider(contextArgument);
+            }
+            return handler.resolve(this, context);
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Resolves the value in the given snapshot, with a context that is shared by several resolvers.
+     *
+     * @param context  The context, or {@code null} if there is none
+     * @param snapshot The snapshot, or {@code null} to look the configuration up in the repository
+     */
+    @Nullable
+    Object resolve(@Nullable final ContextProviderMap context, @Nullable final ConfigurationSnapshot snapshot) {
+        return handler.resolve(this, context, snapshot);
+    }
+
+    /**
+     * Resolves the value for each of the given contexts.
+     *
+     * @param executor The executor evaluating parts of the contexts concurrently, or {@code null} to evaluate all of
+     *                 them in the calling thread
+     */
+    Object[] resolveColumns(final ContextColumns columns, @Nullable final Executor executor, final int parallelism) {
+        return handler.resolveColumns(this, columns, executor, parallelism);
+    }
+
+    int getKeyId() {
+        int id = keyId;
+        if (id == UNRESOLVED_KEY_ID) {
+            id = handler.keyIdOf(descriptor.getKey());
+            keyId = id;
+        }
+        return id;
+    }
+
+    @Nullable
+    ConstantValue getConstantValue() {
+        return constantValue;
+    }
+
+    void setConstantValue(final ConstantValue constantValue) {
+        this.constantValue = constantValue;
+    }
+
+    /**
+     * Whether the given providers have the types of the last ones checked to provide disjoint context params.
+     */
+    boolean hasValidatedSignature(final ContextProviderMap context) {
+        final Class<?>[] signature = validatedSignature;
+        if (signature == null || signature.length != context.getContextProviderCount()) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] != context.getContextProvider(i).getClass()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void setValidatedSignature(final Class<?>[] validatedSignature) {
+        this.validatedSignature = validatedSignature;
+    }
+
+    static final class ConstantValue {
+
+        final ConfigurationSnapshot snapshot;
+        final Object value;
+
+        ConstantValue(final ConfigurationSnapshot snapshot, @Nullable final Object value) {
+            this.snapshot = snapshot;
+            this.value = value;
+        }
+    }
+}
@@ -1,28 +1,36 @@
 package org.zalando.baigan.proxy.handler;
 
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
-import org.zalando.baigan.context.ContextProvider;
 import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.EvaluationPlan;
+import org.zalando.baigan.proxy.BaiganConfigClasses;
 import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Suppliers.memoize;
-import static org.zalando.baigan.proxy.ProxyUtils.createKey;
 
 /**
  * This class provides a concrete implementation for the Method invocation
@@ -41,6 +49,10 @@ public class ContextAwareConfigurationMethodInvocationHandler
 
     private Supplier<ConditionsProcessor> conditionsProcessor;
 
+    private Supplier<BaiganConfigClasses> baiganConfigClasses;
+
+    private final Set<List<Class<?>>> validatedSignatures = ConcurrentHashMap.newKeySet();
+
     /**
      * We have to defer dependency injection and bean resolution as this bean is required by the
      * {@link org.zalando.baigan.proxy.ConfigurationServiceBeanFactory}, which is loaded very
@@ -50,25 +62,152 @@ public class ContextAwareConfigurationMethodInvocationHandler
     public void setBeanFactory(final BeanFactory beanFactory) throws BeansException {
         this.configurationRepository = memoize(() -> beanFactory.getBean(ConfigurationRepository.class));
         this.conditionsProcessor = memoize(() -> beanFactory.getBean(ConditionsProcessor.class));
+        this.baiganConfigClasses = memoize(() -> {
+            final ObjectProvider<BaiganConfigClasses> provider = beanFactory.getBeanProvider(BaiganConfigClasses.class);
+            return provider == null ? null : provider.getIfAvailable();
+        });
     }
 
+    @Override
+    public ConfigurationMethodInvocationHandler forInterface(final Class<?> configInterface) {
+        return new DispatchingInvocationHandler(resolvers(configInterface));
+    }
+
+    /**
+     * Creates the resolvers for all methods of the given configuration interface.
+     */
+    public Map<Method, ConfigurationResolver> resolvers(final Class<?> configInterface) {
+        return ImmutableMap.copyOf(Maps.transformValues(
+                ConfigurationMethodDescriptor.dispatchTable(configInterface),
+                descriptor -> new ConfigurationResolver(descriptor, this)
+        ));
+    }
+
+    /**
+     * Resolves an invocation of a method without a prepared {@link ConfigurationResolver}. Any of the arguments
+     * may carry a context provider, as they are not necessarily the declared parameters of the method.
+     */
     @Override
     protected Object handleInvocation(Object proxy, Method method, Object[] args) {
-        final String key = createKey(getClass(proxy), method);
+        return new ConfigurationResolver(ConfigurationMethodDescriptor.of(getClass(proxy), method), this)
+                .resolve(args);
+    }
 
-        final List<ContextProvider> contextProviders = Arrays.stream(args)
-                .filter(ContextProvider.class::isInstance)
-                .map(ContextProvider.class::cast)
-                .collect(Collectors.toList());
+    /**
+     * @param context The context providers of the invocation, or {@code null} if it has none
+     */
+    Object resolve(final ConfigurationResolver resolver, @Nullable final ContextProviderMap context) {
+        return resolve(resolver, context, configurationRepository.get().getSnapshot());
+    }
 
-        final Object result = getConfig(key, contextProviders);
+    /**
+     * @param snapshot The snapshot to look up the configuration in, or {@code null} to look it up in the repository
+     */
+    Object resolve(final ConfigurationResolver resolver, @Nullable final ContextProviderMap context,
+                   @Nullable final ConfigurationSnapshot snapshot) {
+        if (context != null) {
+            validateSignature(resolver, context);
+        }
+
+        if (snapshot != null) {
+            final ConfigurationResolver.ConstantValue constantValue = resolver.getConstantValue();
+            if (constantValue != null && constantValue.snapshot == snapshot) {
+                return constantValue.value;
+            }
+        }
+
+        final ConfigurationMethodDescriptor descriptor = resolver.getDescriptor();
+        final String key = descriptor.getKey();
+        final Configuration<?> configuration = snapshot != null
+                ? snapshot.get(resolver.getKeyId(), key)
+                : configurationRepository.get().get(key).orElse(null);
+        if (configuration == null) {
+            return checkResult(descriptor, null);
+        }
+
+        if (snapshot != null && configuration.getEvaluationPlan().isConstant()) {
+            // published per snapshot, so that the value is replaced as soon as the repository reloads
+            final Object value = checkResult(descriptor, configuration.getDefaultValue());
+            resolver.setConstantValue(new ConfigurationResolver.ConstantValue(snapshot, value));
+            return value;
+        }
+
+        final Map<String, String> evaluationContext = context == null || context.getContextProviderCount() == 0
+                ? Map.of()
+                : context;
+        return checkResult(descriptor, conditionsProcessor.get().process(configuration, evaluationContext));
+    }
+
+    /**
+     * Resolves the value for each of the given contexts. The configuration is looked up once in the current
+     * snapshot and its evaluation plan is applied to every context. If an executor is given, the contexts are split
+     * into {@code parallelism} ranges of similar size, which are evaluated concurrently; the calling thread evaluates
+     * the last range and waits for the others.
+     */
+    Object[] resolveColumns(final ConfigurationResolver resolver, final ContextColumns columns,
+                            @Nullable final Executor executor, final int parallelism) {
+        final ConfigurationMethodDescriptor descriptor = resolver.getDescriptor();
+        final ConfigurationSnapshot snapshot = configurationRepository.get().getSnapshot();
+        final Configuration<?> configuration = snapshot != null
+                ? snapshot.get(resolver.getKeyId(), descriptor.getKey())
+                : configurationRepository.get().get(descriptor.getKey()).orElse(null);
+
+        final Object[] values = new Object[columns.getRowCount()];
+        if (configuration == null || configuration.getEvaluationPlan().isConstant()) {
+            Arrays.fill(values, checkResult(descriptor, configuration == null ? null : configuration.getDefaultValue()));
+            return values;
+        }
+
+        final EvaluationPlan<?> plan = configuration.getEvaluationPlan();
+        final int rangeCount = executor == null ? 1 : Math.max(1, Math.min(parallelism, values.length));
+        final CompletableFuture<?>[] ranges = new CompletableFuture<?>[rangeCount - 1];
+        for (int i = 0; i < ranges.length; i++) {
+            final int from = rangeStart(i, rangeCount, values.length);
+            final int to = rangeStart(i + 1, rangeCount, values.length);
+            ranges[i] = CompletableFuture.runAsync(
+                    () -> resolveRange(descriptor, plan, columns, values, from, to), executor);
+        }
+        resolveRange(descriptor, plan, columns, values, rangeStart(ranges.length, rangeCount, values.length),
+                values.length);
+        try {
+            CompletableFuture.allOf(ranges).join();
+        } catch (final CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+        return values;
+    }
+
+    private static int rangeStart(final int range, final int rangeCount, final int length) {
+        return (int) ((long) range * length / rangeCount);
+    }
+
+    private void resolveRange(final ConfigurationMethodDescriptor descriptor, final EvaluationPlan<?> plan,
+                              final ContextColumns columns, final Object[] values, final int from, final int to) {
+        final ContextColumns.Row row = columns.row();
+        for (int i = from; i < to; i++) {
+            row.moveTo(i);
+            values[i] = checkResult(descriptor, plan.evaluate(row));
+        }
+    }
+
+    ConfigurationRepository getConfigurationRepository() {
+        return configurationRepository.get();
+    }
+
+    int keyIdOf(final String key) {
+        final BaiganConfigClasses configClasses = baiganConfigClasses.get();
+        return configClasses == null ? BaiganConfigClasses.UNKNOWN_KEY_ID : configClasses.getKeyId(key);
+    }
+
+    private Object checkResult(final ConfigurationMethodDescriptor descriptor, final Object result) {
         if (result == null) {
-            LOG.warn("No configuration found for key [{}] in configuration source, falling back to null.", key);
-            return null;
+            LOG.warn("No configuration found for key [{}] in configuration source, falling back to {}.", descriptor.getKey(), descriptor.getMissingValue());
+            return descriptor.getMissingValue();
         }
-        if (!method.getReturnType().isInstance(result)) {
-            LOG.error("Configuration repository returned object of wrong type. Expected: {}, actual: {}", method.getReturnType(), result.getClass());
-            return null;
+        if (!descriptor.getReturnType().isInstance(result)) {
+            LOG.error("Configuration repository returned object of wrong type. Expected: {}, actual: {}", descriptor.getReturnType(), result.getClass());
+            return descriptor.getMissingValue();
         }
 
         return result;
@@ -80,29 +219,54 @@ public class ContextAwareConfigurationMethodInvocationHandler
         return interfaces[0];
     }
 
-    private Object getConfig(final String key, final List<ContextProvider> contextProviders) {
-
-        final Optional<Configuration> optional = configurationRepository.get().get(key);
-        if (optional.isEmpty()) {
-            return null;
+    /**
+     * Ensures that no two of the given context providers provide the same context param. As the providers are
+     * only asked for the params referenced by the conditions, this is checked once per combination of provider
+     * types instead of on every invocation. Each resolver remembers the last combination it has seen, so that
+     * repeated invocations with the same provider types do not allocate.
+     */
+    private void validateSignature(final ConfigurationResolver resolver, final ContextProviderMap context) {
+        final int contextProviderCount = context.getContextProviderCount();
+        if (contextProviderCount < 2 || resolver.hasValidatedSignature(context)) {
+            return;
         }
-
-        final Map<String, String> context = new HashMap<>();
-
-        if (!CollectionUtils.isEmpty(contextProviders)) {
-            contextProviders.forEach(contextProvider -> {
-                contextProvider
-                        .getProvidedContexts()
-                        .forEach(contextParam -> {
-                            if(context.containsKey(contextParam)){
-                                throw new RuntimeException("Cannot have more than one context provider for the same context key "+contextParam);
-                            }
-                            context.put(contextParam, contextProvider.getContextParam(contextParam));
-                        });
-            });
+        final Class<?>[] signature = new Class<?>[contextProviderCount];
+        for (int i = 0; i < contextProviderCount; i++) {
+            signature[i] = context.getContextProvider(i).getClass();
+        }
+        if (!validatedSignatures.contains(Arrays.asList(signature))) {
+            final Set<String> contextParams = new HashSet<>();
+            for (int i = 0; i < contextProviderCount; i++) {
+                for (final String contextParam : context.getContextProvider(i).getProvidedContexts()) {
+                    if (!contextParams.add(contextParam)) {
+                        throw new RuntimeException("Cannot have more than one context provider for the same context key " + contextParam);
+                    }
+                }
+            }
+            validatedSignatures.add(List.of(signature));
         }
+        resolver.setValidatedSignature(signature);
+    }
+
+    /**
+     * The handler used by the proxy of a single configuration interface. It resolves the
+     * {@link ConfigurationResolver} of the invoked method from a table built once at proxy creation.
+     */
+    private final class DispatchingInvocationHandler extends ConfigurationMethodInvocationHandler {
 
-        return conditionsProcessor.get().process(optional.get(), context);
+        private final Map<Method, ConfigurationResolver> dispatchTable;
 
+        private DispatchingInvocationHandler(final Map<Method, ConfigurationResolver> dispatchTable) {
+            this.dispatchTable = dispatchTable;
+        }
+
+        @Override
+        protected Object handleInvocation(Object proxy, Method method, Object[] args) {
+            final ConfigurationResolver resolver = dispatchTable.get(method);
+            if (resolver == null) {
+                return ContextAwareConfigurationMethodInvocationHandler.this.handleInvocation(proxy, method, args);
+            }
+            return resolver.resolveInvocation(args);
+        }
     }
 }
@@ -0,0 +1,79 @@
+package org.zalando.baigan.proxy.handler;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The contexts of a batch of evaluations in columnar form, i.e. one array of values per context param, where the
+ * i-th element of each array belongs to the i-th context. A {@code null} element means that the param is not set
+ * in that context.
+ */
+final class ContextColumns {
+
+    private final ImmutableMap<String, String[]> columns;
+    private final int rowCount;
+
+    ContextColumns(final Map<String, String[]> columns) {
+        checkArgument(!columns.isEmpty(), "At least one context column is required");
+        this.columns = ImmutableMap.copyOf(columns);
+        this.rowCount = this.columns.values().iterator().next().length;
+        this.columns.forEach((param, values) -> checkArgument(values.length == rowCount,
+                "The context column %s has %s values, expected %s", param, values.length, rowCount));
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Creates a view of a single context, initially the first one. A view is meant to be used by one thread.
+     */
+    Row row() {
+        return new Row();
+    }
+
+    /**
+     * A single context of the batch. Looking up a param costs a lookup of its column, so that moving to another
+     * context does not allocate.
+     */
+    final class Row extends AbstractMap<String, String> {
+
+        private int index;
+
+        private Row() {
+        }
+
+        void moveTo(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String get(final Object name) {
+            final String[] column = columns.get(name);
+            return column == null ? null : column[index];
+        }
+
+        @Override
+        public boolean containsKey(final Object name) {
+            return get(name) != null;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            final Map<String, String> context = new LinkedHashMap<>();
+            columns.forEach((param, column) -> {
+                if (column[index] != null) {
+                    context.put(param, column[index]);
+                }
+            });
+            return Collections.unmodifiableMap(context).entrySet();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.zalando.baigan.proxy.handler;
+
+import org.zalando.baigan.context.ContextProvider;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The context of a single invocation, backed by its {@link ContextProvider}s.
+ * <p>
+ * A context param is only requested from its provider when it is looked up, i.e. when a condition referencing it
+ * is evaluated, and at most once per invocation. The providers are expected to provide disjoint context params.
+ * <p>
+ * Each thread reuses one instance across invocations, so that evaluating conditions does not allocate. An instance
+ * is only valid until it is {@link #release() released} at the end of the invocation and must not be retained.
+ */
+final class ContextProviderMap extends AbstractMap<String, String> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private static final ThreadLocal<ContextProviderMap> CURRENT = ThreadLocal.withInitial(ContextProviderMap::new);
+
+    private ContextProvider[] contextProviders = new ContextProvider[INITIAL_CAPACITY];
+    private int contextProviderCount;
+
+    private String[] resolvedParams = new String[INITIAL_CAPACITY];
+    private String[] resolvedValues = new String[INITIAL_CAPACITY];
+    private int resolvedCount;
+
+    private boolean inUse;
+
+    /**
+     * Returns the context of the current thread, or a new one if it is in use by an enclosing invocation, e.g. one
+     * made by a context provider.
+     */
+    static ContextProviderMap acquire() {
+        final ContextProviderMap context = CURRENT.get();
+        if (context.inUse) {
+            final ContextProviderMap nested = new ContextProviderMap();
+            nested.inUse = true;
+            return nested;
+        }
+        context.inUse = true;
+        return context;
+    }
+
+    /**
+     * Clears the context, dropping the references to the providers and resolved values.
+     */
+    void release() {
+        Arrays.fill(contextProviders, 0, contextProviderCount, null);
+        Arrays.fill(resolvedParams, 0, resolvedCount, null);
+        Arrays.fill(resolvedValues, 0, resolvedCount, null);
+        contextProviderCount = 0;
+        resolvedCount = 0;
+        inUse = false;
+    }
+
+    void addIfContextProvider(final Object argument) {
+        if (argument instanceof ContextProvider) {
+            if (contextProviderCount == contextProviders.length) {
+                contextProviders = Arrays.copyOf(contextProviders, contextProviderCount * 2);
+            }
+            contextProviders[contextProviderCount++] = (ContextProvider) argument;
+        }
+    }
+
+    int getContextProviderCount() {
+        return contextProviderCount;
+    }
+
+    ContextProvider getContextProvider(final int index) {
+        return contextProviders[index];
+    }
+
+    @Override
+    public String get(final Object name) {
+        if (!(name instanceof String)) {
+            return null;
+        }
+        final String param = (String) name;
+        final int resolvedIndex = indexOfResolved(param);
+        if (resolvedIndex >= 0) {
+            return resolvedValues[resolvedIndex];
+        }
+        final ContextProvider contextProvider = providerOf(param);
+        if (contextProvider == null) {
+            return null;
+        }
+        final String value = contextProvider.getContextParam(param);
+        addResolved(param, value);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        return name instanceof String && (indexOfResolved((String) name) >= 0 || providerOf((String) name) != null);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        final Map<String, String> context = new LinkedHashMap<>();
+        for (int i = 0; i < contextProviderCount; i++) {
+            for (final String param : contextProviders[i].getProvidedContexts()) {
+                context.put(param, get(param));
+            }
+        }
+        return Collections.unmodifiableMap(context).entrySet();
+    }
+
+    private int indexOfResolved(final String param) {
+        for (int i = 0; i < resolvedCount; i++) {
+            if (resolvedParams[i].equals(param)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addResolved(final String param, final String value) {
+        if (resolvedCount == resolvedParams.length) {
+            resolvedParams = Arrays.copyOf(resolvedParams, resolvedCount * 2);
+            resolvedValues = Arrays.copyOf(resolvedValues, resolvedCount * 2);
+        }
+        resolvedParams[resolvedCount] = param;
+        resolvedValues[resolvedCount] = value;
+        resolvedCount++;
+    }
+
+    private ContextProvider providerOf(final String param) {
+        for (int i = 0; i < contextProviderCount; i++) {
+            if (contextProviders[i].getProvidedContexts().contains(param)) {
+                return contextProviders[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package org.zalando.baigan.proxy.handler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed set of configuration keys that are evaluated together, created once by a {@link BaiganEvaluator} and then
+ * evaluated as often as needed, e.g. once per request.
+ * <p>
+ * An evaluation reads all configurations from the same snapshot of the repository, so that the values are
+ * consistent even if the repository reloads in the meantime. Each context param is requested from its provider at
+ * most once per evaluation, however many conditions reference it.
+ */
+public final class EvaluationBatch {
+
+    private final ConfigurationResolver[] resolvers;
+    private final ImmutableList<String> keys;
+    private final ImmutableMap<String, Integer> indicesByKey;
+    private final ContextAwareConfigurationMethodInvocationHandler handler;
+
+    EvaluationBatch(final List<ConfigurationResolver> resolvers,
+                    final ContextAwareConfigurationMethodInvocationHandler handler) {
+        this.resolvers = resolvers.toArray(new ConfigurationResolver[0]);
+        final ImmutableList.Builder<String> keys = ImmutableList.builderWithExpectedSize(this.resolvers.length);
+        final ImmutableMap.Builder<String, Integer> indicesByKey = ImmutableMap.builderWithExpectedSize(
+                this.resolvers.length);
+        for (int i = 0; i < this.resolvers.length; i++) {
+            final String key = this.resolvers[i].getDescriptor().getKey();
+            keys.add(key);
+            indicesByKey.put(key, i);
+        }
+        this.keys = keys.build();
+        this.indicesByKey = indicesByKey.build();
+        this.handler = handler;
+    }
+
+    /**
+     * @return The keys of this batch, in the order of their values in an {@link EvaluationResult}.
+     */
+    @Nonnull
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Evaluates all configurations of this batch in the current snapshot of the repository. If the repository does
+     * not provide snapshots, each configuration is looked up in the repository instead.
+     */
+    @Nonnull
+    public EvaluationResult evaluate(final ContextProvider... contextProviders) {
+        final ConfigurationSnapshot snapshot = handler.getConfigurationRepository().getSnapshot();
+        final Object[] values = new Object[resolvers.length];
+        final ContextProviderMap context = ContextProviderMap.acquire();
+        try {
+            for (final ContextProvider contextProvider : contextProviders) {
+                context.addIfContextProvider(contextProvider);
+            }
+            final ContextProviderMap evaluationContext = context.getContextProviderCount() == 0 ? null : context;
+            for (int i = 0; i < resolvers.length; i++) {
+                values[i] = resolvers[i].resolve(evaluationContext, snapshot);
+            }
+        } finally {
+            context.release();
+        }
+        return new EvaluationResult(this, values, snapshot == null ? EvaluationResult.NO_VERSION : snapshot.getVersion());
+    }
+
+    Map<String, Integer> getIndicesByKey() {
+        return indicesByKey;
+    }
+}
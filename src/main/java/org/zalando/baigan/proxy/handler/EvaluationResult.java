@@ -0,0 +1,84 @@
+package org.zalando.baigan.proxy.handler;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The values of the configurations of an {@link EvaluationBatch}, as evaluated for one context in one snapshot.
+ * The values are stored in an array in the order of {@link EvaluationBatch#getKeys()}. Missing configurations have
+ * the value {@code null}, or {@code false} or zero if the key belongs to a method with a primitive return type.
+ */
+public final class EvaluationResult {
+
+    /**
+     * The snapshot version of results evaluated in a repository without snapshots.
+     */
+    public static final long NO_VERSION = -1;
+
+    private final EvaluationBatch batch;
+    private final Object[] values;
+    private final long snapshotVersion;
+
+    EvaluationResult(final EvaluationBatch batch, final Object[] values, final long snapshotVersion) {
+        this.batch = batch;
+        this.values = values;
+        this.snapshotVersion = snapshotVersion;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is not part of the batch
+     */
+    @Nullable
+    public Object get(@Nonnull final String key) {
+        final Integer index = batch.getIndicesByKey().get(key);
+        checkArgument(index != null, "The key %s was not evaluated", key);
+        return values[index];
+    }
+
+    /**
+     * @param index The index of the key in {@link EvaluationBatch#getKeys()}
+     */
+    @Nullable
+    public Object get(final int index) {
+        return values[index];
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is not part of the batch
+     * @throws ClassCastException       if the value is not of the given type
+     */
+    @Nullable
+    public <T> T get(@Nonnull final String key, @Nonnull final Class<T> type) {
+        return type.cast(get(key));
+    }
+
+    @Nonnull
+    public List<String> getKeys() {
+        return batch.getKeys();
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return The version of the snapshot the values were evaluated in, or {@link #NO_VERSION} if the repository
+     * does not provide snapshots.
+     */
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", EvaluationResult.class.getSimpleName() + "[", "]");
+        for (int i = 0; i < values.length; i++) {
+            joiner.add(batch.getKeys().get(i) + "=" + values[i]);
+        }
+        return joiner.toString();
+    }
+}
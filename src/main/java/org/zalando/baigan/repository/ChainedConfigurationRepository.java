@@ -3,24 +3,46 @@ package org.zalando.baigan.repository;
 import org.zalando.baigan.model.Configuration;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * The ChainedConfigurationRepository provides a {@link ConfigurationRepository} that chains multiple configuration
  * repositories. Repositories are checked in the order they are provided for the requested key.
  * The first repository that contains the key is used to provide the value.
+ * <p>
+ * If all chained repositories provide {@link ConfigurationRepository#getSnapshot() snapshots}, their snapshots are
+ * merged into one, which is rebuilt whenever one of the repositories publishes a new snapshot. A lookup then costs
+ * a single probe regardless of the number of chained repositories. Otherwise, each lookup checks the repositories
+ * one after another.
  */
 public class ChainedConfigurationRepository implements ConfigurationRepository {
     private final List<ConfigurationRepository> configurationRepositories;
+    private final boolean merged;
+    private final SnapshotListeners snapshotListeners = new SnapshotListeners();
+    private volatile ConfigurationSnapshot snapshot;
 
     ChainedConfigurationRepository(final List<ConfigurationRepository> configurationRepositories) {
         this.configurationRepositories = configurationRepositories;
+        this.merged = configurationRepositories.stream().allMatch(repository -> repository.getSnapshot() != null);
+        if (merged) {
+            // listening first, so that no snapshot published while merging is missed
+            for (final ConfigurationRepository configurationRepository : configurationRepositories) {
+                configurationRepository.addSnapshotListener(ignored -> mergeSnapshots());
+            }
+            mergeSnapshots();
+        }
     }
 
     @Nonnull
     @Override
     public Optional<Configuration> get(@Nonnull String key) {
+        if (merged) {
+            return Optional.ofNullable(snapshot.get(key));
+        }
         for (final ConfigurationRepository configurationRepository : configurationRepositories) {
             final Optional<Configuration> configuration = configurationRepository.get(key);
             if (configuration.isPresent()) {
@@ -30,8 +52,37 @@ public class ChainedConfigurationRepository implements ConfigurationRepository {
         return Optional.empty();
     }
 
+    /**
+     * @return The merged snapshots of the chained repositories, or {@code null} if not all of them provide
+     * snapshots.
+     */
+    @Nullable
+    @Override
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nonnull
+    @Override
+    public SnapshotListenerRegistration addSnapshotListener(@Nonnull final Consumer<ConfigurationSnapshot> listener) {
+        return snapshotListeners.add(listener);
+    }
+
     @Override
     public void put(@Nonnull String key, @Nonnull String value) {
         throw new UnsupportedOperationException("The ChainedConfigurationRepository doesn't allow any changes.");
     }
+
+    /**
+     * Merges the current snapshots of all chained repositories. Merges are serialized, so that the last one always
+     * sees the latest snapshots.
+     */
+    private synchronized void mergeSnapshots() {
+        final List<ConfigurationSnapshot> snapshots = new ArrayList<>(configurationRepositories.size());
+        for (final ConfigurationRepository configurationRepository : configurationRepositories) {
+            snapshots.add(configurationRepository.getSnapshot());
+        }
+        snapshot = ConfigurationSnapshot.merge(snapshots);
+        snapshotListeners.notifyListeners(snapshot);
+    }
 }
@@ -0,0 +1,72 @@
+package org.zalando.baigan.repository;
+
+import org.zalando.baigan.model.Configuration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.StringJoiner;
+
+/**
+ * The change of the configuration of a key between two consecutive snapshots of a repository, as published by
+ * {@link ConfigurationChangePublisher}. A key that was added has no previous configuration, a key that was removed
+ * has no current one.
+ * <p>
+ * The configurations are looked up in the snapshots when requested, so that configurations which are deserialized
+ * lazily are only deserialized if a subscriber is interested in them.
+ */
+public final class ConfigurationChange {
+
+    private final String key;
+    private final ConfigurationSnapshot previousSnapshot;
+    private final ConfigurationSnapshot snapshot;
+
+    ConfigurationChange(final String key, final ConfigurationSnapshot previousSnapshot,
+                        final ConfigurationSnapshot snapshot) {
+        this.key = key;
+        this.previousSnapshot = previousSnapshot;
+        this.snapshot = snapshot;
+    }
+
+    @Nonnull
+    public String getKey() {
+        return key;
+    }
+
+    @Nullable
+    public Configuration<?> getPreviousConfiguration() {
+        return previousSnapshot.get(key);
+    }
+
+    @Nullable
+    public Configuration<?> getConfiguration() {
+        return snapshot.get(key);
+    }
+
+    /**
+     * @return The version of the snapshot before the change, see {@link ConfigurationSnapshot#getVersion()}.
+     */
+    public long getPreviousVersion() {
+        return previousSnapshot.getVersion();
+    }
+
+    /**
+     * @return The version of the snapshot with the change. All changes of one reload have the same version.
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    @Nonnull
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ConfigurationChange.class.getSimpleName() + "[", "]")
+                .add("key='" + key + "'")
+                .add("previousVersion=" + previousSnapshot.getVersion())
+                .add("version=" + snapshot.getVersion())
+                .toString();
+    }
+}
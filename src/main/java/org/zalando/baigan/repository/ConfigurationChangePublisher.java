@@ -0,0 +1,95 @@
+package org.zalando.baigan.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Publishes a {@link ConfigurationChange} for every key whose configuration changes when a repository reloads, so
+ * that components deriving state from configurations do not have to poll them.
+ * <p>
+ * The changes are determined by comparing each new {@link ConfigurationSnapshot snapshot} of the repository with
+ * the previous one on the thread that loaded it, and are delivered to subscribers on the given executor. Each
+ * subscriber has a buffer of bounded capacity; changes that do not fit into the buffer of a subscriber that falls
+ * behind are dropped for that subscriber and logged. Subscribers can detect the gap by the
+ * {@link ConfigurationChange#getPreviousVersion() versions} of the changes and recover from the snapshot of the
+ * repository.
+ */
+public class ConfigurationChangePublisher implements Flow.Publisher<ConfigurationChange>, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationChangePublisher.class);
+
+    private final SubmissionPublisher<ConfigurationChange> publisher;
+    private final SnapshotListenerRegistration listenerRegistration;
+    private ConfigurationSnapshot snapshot;
+
+    /**
+     * Creates a publisher delivering changes on the common fork join pool, with the default buffer capacity of
+     * {@link Flow#defaultBufferSize()}.
+     */
+    public ConfigurationChangePublisher(final ConfigurationRepository repository) {
+        this(repository, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * @param repository        The repository to publish the changes of, which has to provide snapshots
+     * @param executor          The executor to deliver the changes to subscribers on
+     * @param maxBufferCapacity The maximum number of changes buffered per subscriber
+     * @throws IllegalArgumentException if the repository does not provide snapshots
+     */
+    public ConfigurationChangePublisher(final ConfigurationRepository repository, final Executor executor,
+                                        final int maxBufferCapacity) {
+        checkNotNull(repository, "repository is required");
+        checkNotNull(executor, "executor is required");
+        checkArgument(maxBufferCapacity > 0, "maxBufferCapacity must be positive");
+        checkArgument(repository.getSnapshot() != null, "The repository %s does not provide snapshots", repository);
+        this.publisher = new SubmissionPublisher<>(executor, maxBufferCapacity);
+        // listening first, so that no snapshot published in between is missed
+        this.listenerRegistration = repository.addSnapshotListener(this::publishChanges);
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = repository.getSnapshot();
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(@Nonnull final Flow.Subscriber<? super ConfigurationChange> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Stops listening to the repository and completes all subscriptions. Changes of later reloads are no longer
+     * published.
+     */
+    @Override
+    public void close() {
+        listenerRegistration.close();
+        publisher.close();
+    }
+
+    private synchronized void publishChanges(final ConfigurationSnapshot newSnapshot) {
+        final ConfigurationSnapshot previousSnapshot = snapshot;
+        if (previousSnapshot != null && newSnapshot.getVersion() <= previousSnapshot.getVersion()) {
+            return;
+        }
+        snapshot = newSnapshot;
+        if (previousSnapshot == null || publisher.isClosed() || !publisher.hasSubscribers()) {
+            return;
+        }
+        for (final String key : newSnapshot.getChangedKeys(previousSnapshot)) {
+            publisher.offer(new ConfigurationChange(key, previousSnapshot, newSnapshot), (subscriber, change) -> {
+                LOG.warn("Dropped {} for subscriber {}, whose buffer is full.", change, subscriber);
+                return false;
+            });
+        }
+    }
+}
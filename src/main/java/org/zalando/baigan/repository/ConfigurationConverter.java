@@ -0,0 +1,60 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Converts configuration documents between the supported {@link ConfigurationFormat}s, e.g. to publish the binary
+ * encoding of a configuration file next to its JSON source.
+ * <p>
+ * Usage: {@code java -cp baigan-config.jar org.zalando.baigan.repository.ConfigurationConverter <source> <target>
+ * <json|smile|cbor>}. The format of the source file is detected by its content.
+ */
+public final class ConfigurationConverter {
+
+    private ConfigurationConverter() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: ConfigurationConverter <source> <target> <json|smile|cbor>");
+            System.exit(2);
+        }
+        final Path source = Paths.get(args[0]);
+        final Path target = Paths.get(args[1]);
+        final ConfigurationFormat targetFormat = ConfigurationFormat.valueOf(args[2].toUpperCase(Locale.ROOT));
+
+        final ConfigurationDocument document = ConfigurationDocument.of(Files.readAllBytes(source));
+        final ConfigurationDocument converted = convert(document, targetFormat);
+        Files.write(target, converted.getContent());
+        System.out.printf("Converted %s (%s, %d bytes) to %s (%s, %d bytes)%n", source, document.getFormat(),
+                document.getContent().length, target, targetFormat, converted.getContent().length);
+    }
+
+    /**
+     * Re-encodes the document in the given format. Only the encoding changes, the configurations are not
+     * validated against any configuration types.
+     */
+    @Nonnull
+    public static ConfigurationDocument convert(@Nonnull final ConfigurationDocument document,
+                                                @Nonnull final ConfigurationFormat targetFormat) {
+        if (document.getFormat() == targetFormat) {
+            return document;
+        }
+        try {
+            final JsonNode tree = new ObjectMapper(document.getFormat().createFactory()).readTree(document.getContent());
+            final byte[] content = new ObjectMapper(targetFormat.createFactory()).writeValueAsBytes(tree);
+            return ConfigurationDocument.of(content, targetFormat);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
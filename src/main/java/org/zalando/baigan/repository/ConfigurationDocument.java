@@ -0,0 +1,89 @@
+package org.zalando.baigan.repository;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The raw content of a configuration source together with its {@link ConfigurationFormat}, as loaded by a
+ * {@link ConfigurationRepository} before parsing.
+ * <p>
+ * The content is not copied, so it must not be modified after the document was created.
+ */
+public final class ConfigurationDocument {
+
+    private final byte[] content;
+    private final ConfigurationFormat format;
+
+    private ConfigurationDocument(final byte[] content, final ConfigurationFormat format) {
+        this.content = checkNotNull(content, "content is required");
+        this.format = checkNotNull(format, "format is required");
+    }
+
+    /**
+     * Creates a document in the format detected by its content, see {@link ConfigurationFormat#detect(byte[])}.
+     */
+    @Nonnull
+    public static ConfigurationDocument of(@Nonnull final byte[] content) {
+        return new ConfigurationDocument(content, ConfigurationFormat.detect(content));
+    }
+
+    /**
+     * Creates a document in the format denoted by the content type, falling back to detecting it by the content
+     * if the content type is missing or unknown.
+     */
+    @Nonnull
+    public static ConfigurationDocument of(@Nonnull final byte[] content, @Nullable final String contentType) {
+        return ConfigurationFormat.fromContentType(contentType)
+                .map(format -> new ConfigurationDocument(content, format))
+                .orElseGet(() -> of(content));
+    }
+
+    @Nonnull
+    public static ConfigurationDocument of(@Nonnull final byte[] content, @Nonnull final ConfigurationFormat format) {
+        return new ConfigurationDocument(content, format);
+    }
+
+    @Nonnull
+    public static ConfigurationDocument ofJson(@Nonnull final String text) {
+        return new ConfigurationDocument(text.getBytes(StandardCharsets.UTF_8), ConfigurationFormat.JSON);
+    }
+
+    /**
+     * @return The content, which must not be modified.
+     */
+    @Nonnull
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Nonnull
+    public ConfigurationFormat getFormat() {
+        return format;
+    }
+
+    public boolean isEmpty() {
+        return content.length == 0;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ConfigurationDocument that = (ConfigurationDocument) o;
+        return format == that.format && Arrays.equals(content, that.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * format.hashCode() + Arrays.hashCode(content);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationDocument{format=" + format + ", size=" + content.length + "}";
+    }
+}
@@ -0,0 +1,157 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.google.common.hash.HashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.baigan.model.Configuration;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A configuration of a document, deserialized either when the document is parsed or on its first access.
+ * <p>
+ * A lazy entry keeps a copy of the raw bytes of its entry until the configuration is first requested, so that the
+ * snapshot does not retain the whole document. Threads requesting it at the same time may each deserialize it, but
+ * all of them get the instance that was published first. If the entry cannot be deserialized, the error is logged
+ * once and the entry takes the configuration of the entry it replaced on reload, so that a bad value in a reloaded
+ * document does not turn the configuration into its missing value. Only if there is no such entry, the configuration
+ * is treated as missing.
+ */
+final class ConfigurationEntry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationEntry.class);
+
+    private static final VarHandle CONFIGURATION;
+
+    static {
+        try {
+            CONFIGURATION = MethodHandles.lookup()
+                    .findVarHandle(ConfigurationEntry.class, "configuration", Configuration.class);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String alias;
+    private final byte[] content;
+    private final HashCode fingerprint;
+    private final SelectiveConfigurationReader reader;
+    private final JsonFactory entryFactory;
+    private volatile Configuration<?> configuration;
+    private volatile boolean failed;
+    private volatile ConfigurationEntry fallback;
+
+    private ConfigurationEntry(final String alias, @Nullable final Configuration<?> configuration,
+                               @Nullable final byte[] content, @Nullable final HashCode fingerprint,
+                               @Nullable final SelectiveConfigurationReader reader,
+                               @Nullable final JsonFactory entryFactory, @Nullable final ConfigurationEntry fallback) {
+        this.alias = alias;
+        this.configuration = configuration;
+        this.content = content;
+        this.fingerprint = fingerprint;
+        this.reader = reader;
+        this.entryFactory = entryFactory;
+        this.fallback = fallback;
+    }
+
+    static ConfigurationEntry of(final Configuration<?> configuration) {
+        return new ConfigurationEntry(configuration.getAlias(), configuration, null, null, null, null, null);
+    }
+
+    /**
+     * @param alias       The alias of the entry, which the reader knows the type of
+     * @param content     The content of the document, of which only the bytes of the entry are kept
+     * @param fingerprint The fingerprint of the raw bytes of the entry
+     * @param reader      The reader to deserialize the entry with on its first access
+     * @param previous    The entry of the same key in the previous snapshot, whose configuration is taken if this
+     *                    entry cannot be deserialized, or {@code null} if there is none
+     */
+    static ConfigurationEntry lazy(final String alias, final byte[] content, final int start, final int length,
+                                   final HashCode fingerprint, final SelectiveConfigurationReader reader,
+                                   final JsonFactory entryFactory, @Nullable final ConfigurationEntry previous) {
+        return new ConfigurationEntry(alias, null, Arrays.copyOfRange(content, start, start + length), fingerprint,
+                reader, entryFactory, previous == null ? null : previous.settle());
+    }
+
+    String getAlias() {
+        return alias;
+    }
+
+    /**
+     * @return The configuration, deserializing it if that has not happened yet, or {@code null} if it cannot be
+     * deserialized.
+     */
+    @Nullable
+    Configuration<?> get() {
+        final Configuration<?> configuration = this.configuration;
+        if (configuration != null || failed) {
+            return configuration;
+        }
+        return deserialize();
+    }
+
+    /**
+     * Whether this entry and the other one are lazy entries with the same raw bytes, and thus deserialize into
+     * equal configurations. Entries that are not lazy have no raw bytes to compare.
+     */
+    boolean hasSameContent(final ConfigurationEntry other) {
+        return fingerprint != null && fingerprint.equals(other.fingerprint);
+    }
+
+    /**
+     * @return The configuration, or {@code null} if it has not been deserialized yet.
+     */
+    @Nullable
+    Configuration<?> getIfDeserialized() {
+        return configuration;
+    }
+
+    /**
+     * Deserializes this entry if it has a fallback, so that entries of a key that changes on every reload but is
+     * never looked up do not form an ever growing chain of fallbacks.
+     */
+    private ConfigurationEntry settle() {
+        if (fallback != null) {
+            get();
+        }
+        return this;
+    }
+
+    private Configuration<?> deserialize() {
+        Configuration<?> configuration;
+        try {
+            configuration = reader.readEntry(content, entryFactory, 0, content.length);
+        } catch (final IOException | RuntimeException e) {
+            final Configuration<?> previous = getFallbackConfiguration();
+            if (previous == null) {
+                LOG.error("Failed to deserialize configuration for key [{}], treating it as missing.", alias, e);
+            } else {
+                LOG.error("Failed to deserialize configuration for key [{}], keeping its previous value.", alias, e);
+            }
+            configuration = previous;
+        }
+        if (configuration == null) {
+            // another thread may have published the configuration and dropped the fallback in the meantime
+            final Configuration<?> published = this.configuration;
+            if (published == null) {
+                failed = true;
+            }
+            fallback = null;
+            return published;
+        }
+        final Configuration<?> published = (Configuration<?>) CONFIGURATION.compareAndExchange(this, null, configuration);
+        fallback = null;
+        return published != null ? published : configuration;
+    }
+
+    @Nullable
+    private Configuration<?> getFallbackConfiguration() {
+        final ConfigurationEntry fallback = this.fallback;
+        return fallback == null ? null : fallback.get();
+    }
+}
@@ -0,0 +1,86 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.zalando.baigan.model.Configuration;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fingerprints of the raw entries of a configuration document, each mapped to the configuration it was
+ * deserialized into, so that a reload of the document can reuse the configurations of unchanged entries. Entries
+ * that are {@link ConfigurationEntry deserialized lazily} can be reused once they have been deserialized.
+ * <p>
+ * Entries whose alias is unknown are remembered as well, so that they can be skipped without reading their alias
+ * again.
+ */
+final class ConfigurationFingerprints {
+
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
+    private final ObjectMapper objectMapper;
+    private final Map<HashCode, ConfigurationEntry> configurations;
+    private final Set<HashCode> ignoredEntries;
+
+    private ConfigurationFingerprints(final ObjectMapper objectMapper,
+                                      final Map<HashCode, ConfigurationEntry> configurations,
+                                      final Set<HashCode> ignoredEntries) {
+        this.objectMapper = objectMapper;
+        this.configurations = configurations;
+        this.ignoredEntries = ignoredEntries;
+    }
+
+    static HashCode fingerprint(final byte[] content, final int offset, final int length) {
+        return FINGERPRINT_FUNCTION.hashBytes(content, offset, length);
+    }
+
+    /**
+     * Whether the configurations were deserialized with the given object mapper, and may thus be reused by it.
+     */
+    boolean isCreatedBy(final ObjectMapper objectMapper) {
+        return this.objectMapper == objectMapper;
+    }
+
+    /**
+     * @return The configuration of the entry with the fingerprint, or {@code null} if there was no such entry or it
+     * has not been deserialized.
+     */
+    @Nullable
+    Configuration<?> getConfiguration(final HashCode fingerprint) {
+        final ConfigurationEntry entry = configurations.get(fingerprint);
+        return entry == null ? null : entry.getIfDeserialized();
+    }
+
+    boolean isIgnored(final HashCode fingerprint) {
+        return ignoredEntries.contains(fingerprint);
+    }
+
+    static final class Builder {
+
+        private final ObjectMapper objectMapper;
+        private final Map<HashCode, ConfigurationEntry> configurations = new HashMap<>();
+        private final Set<HashCode> ignoredEntries = new HashSet<>();
+
+        Builder(final ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        void add(final HashCode fingerprint, final ConfigurationEntry configuration) {
+            configurations.put(fingerprint, configuration);
+        }
+
+        void ignore(final HashCode fingerprint) {
+            ignoredEntries.add(fingerprint);
+        }
+
+        ConfigurationFingerprints build() {
+            return new ConfigurationFingerprints(objectMapper, configurations, ignoredEntries);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The encodings a configuration document can be stored in. Besides JSON, the binary
+ * <a href="https://github.com/FasterXML/smile-format-specification">Smile</a> and
+ * <a href="https://www.rfc-editor.org/rfc/rfc8949">CBOR</a> encodings of the same document are supported, which
+ * are smaller and considerably faster to parse.
+ */
+public enum ConfigurationFormat {
+
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile"),
+    CBOR("application/cbor");
+
+    private static final int CBOR_MAJOR_TYPE_MASK = 0xE0;
+    private static final int CBOR_MAJOR_TYPE_ARRAY = 0x80;
+    private static final int CBOR_MAJOR_TYPE_MAP = 0xA0;
+    private static final int CBOR_TAG_SELF_DESCRIBE_FIRST_BYTE = 0xD9;
+
+    private final String contentType;
+
+    ConfigurationFormat(final String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return The content type to store documents of this format with, e.g. as S3 object metadata.
+     */
+    @Nonnull
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Detects the format by the first bytes of a document: Smile documents start with the header {@code :)\n} and
+     * CBOR documents with either the self-describe tag or an array or map, none of which is a valid start of a
+     * JSON document.
+     */
+    @Nonnull
+    public static ConfigurationFormat detect(@Nonnull final byte[] content) {
+        if (content.length >= 3 && content[0] == SmileConstants.HEADER_BYTE_1
+                && content[1] == SmileConstants.HEADER_BYTE_2 && content[2] == SmileConstants.HEADER_BYTE_3) {
+            return SMILE;
+        }
+        if (content.length > 0) {
+            final int firstByte = content[0] & 0xFF;
+            final int majorType = firstByte & CBOR_MAJOR_TYPE_MASK;
+            if (firstByte == CBOR_TAG_SELF_DESCRIBE_FIRST_BYTE || majorType == CBOR_MAJOR_TYPE_ARRAY
+                    || majorType == CBOR_MAJOR_TYPE_MAP) {
+                return CBOR;
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * @param contentType A content type, possibly with parameters
+     * @return The format of the content type, or {@link Optional#empty()} if it does not denote a known format.
+     */
+    @Nonnull
+    public static Optional<ConfigurationFormat> fromContentType(@Nullable final String contentType) {
+        if (contentType == null) {
+            return Optional.empty();
+        }
+        final int parametersStart = contentType.indexOf(';');
+        final String mediaType = (parametersStart < 0 ? contentType : contentType.substring(0, parametersStart))
+                .trim().toLowerCase(Locale.ROOT);
+        for (final ConfigurationFormat format : values()) {
+            if (format.contentType.equals(mediaType)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    JsonFactory createFactory() {
+        switch (this) {
+            case SMILE:
+                // back references to names would tie each entry to the ones before it, see ConfigurationParser
+                return SmileFactory.builder().disable(SmileGenerator.Feature.CHECK_SHARED_NAMES).build();
+            case CBOR:
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
@@ -1,95 +1,258 @@
 package org.zalando.baigan.repository;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import org.zalando.baigan.model.Condition;
 import org.zalando.baigan.model.Configuration;
 import org.zalando.baigan.proxy.BaiganConfigClasses;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-
-import static java.util.Optional.empty;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 
+/**
+ * Parses configuration sources into typed {@link Configuration}s.
+ * <p>
+ * Sources are read as a stream of tokens, so that configurations whose alias does not match any method of any
+ * {@link org.zalando.baigan.annotation.BaiganConfig} interface are skipped without being materialized, see
+ * {@link SelectiveConfigurationReader}.
+ */
 @Component
 public class ConfigurationParser {
 
+    static final long DEFAULT_PARALLEL_DESERIALIZATION_THRESHOLD = 1 << 20;
+
+    private static final int SMILE_HEADER_SHARED_OR_RAW_MASK = SmileConstants.HEADER_BIT_HAS_SHARED_NAMES
+            | SmileConstants.HEADER_BIT_HAS_SHARED_STRING_VALUES | SmileConstants.HEADER_BIT_HAS_RAW_BINARY;
+
     private final Logger LOG = LoggerFactory
             .getLogger(ConfigurationParser.class);
+
     ObjectMapper objectMapper;
+    private Map<ConfigurationFormat, ObjectMapper> objectMappersByFormat;
+    private Map<ConfigurationFormat, JsonFactory> entryFactoriesByFormat;
+    private volatile ConfigurationValueReaders valueReaders;
     final BaiganConfigClasses baiganConfigClasses;
 
     @Autowired
     public ConfigurationParser(final BaiganConfigClasses baiganConfigClasses, @Qualifier("baiganObjectMapper") final Optional<ObjectMapper> objectMapper) {
         this.baiganConfigClasses = baiganConfigClasses;
-        this.objectMapper = objectMapper.orElseGet(ObjectMapper::new);
+        setObjectMapper(objectMapper.orElseGet(ObjectMapper::new));
     }
 
     @Nonnull
     public List<Configuration<?>> parseConfigurations(final String text) {
-        List<Configuration<JsonNode>> rawConfigs = parseConfigText(text, new TypeReference<List<Configuration<JsonNode>>>() {
-        }).orElse(List.of());
-        return rawConfigs.stream()
-                .map(this::convertToTypedConfig)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(toList());
-    }
-
-    private <T> Optional<T> parseConfigText(final String text, TypeReference<T> type) {
         if (text == null || text.isEmpty()) {
             LOG.warn("Input to parse is empty: {}", text);
-            return empty();
+            return List.of();
+        }
+        try (JsonParser parser = objectMapper.createParser(text)) {
+            return readConfigurations(objectMapper, parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the configurations straight from the content of the document, in any {@link ConfigurationFormat}.
+     */
+    @Nonnull
+    public List<Configuration<?>> parseDocument(final ConfigurationDocument document) {
+        if (document == null || document.isEmpty()) {
+            LOG.warn("Input to parse is empty: {}", document);
+            return List.of();
+        }
+        final ObjectMapper formatObjectMapper = objectMappersByFormat.get(document.getFormat());
+        try (JsonParser parser = formatObjectMapper.createParser(document.getContent())) {
+            return readConfigurations(formatObjectMapper, parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the configurations from a stream, which is read incrementally and not closed.
+     */
+    @Nonnull
+    public List<Configuration<?>> parseStream(final InputStream input, final ConfigurationFormat format) {
+        final ObjectMapper formatObjectMapper = objectMappersByFormat.get(format);
+        try (JsonParser parser = formatObjectMapper.createParser(input)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return readConfigurations(formatObjectMapper, parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the configurations from the remaining bytes of a buffer, e.g. a memory mapped file, without copying
+     * them. The format is detected by the content and the position of the buffer is left unchanged.
+     */
+    @Nonnull
+    public List<Configuration<?>> parseBuffer(final ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            LOG.warn("Input to parse is empty: {}", buffer);
+            return List.of();
+        }
+        final byte[] header = new byte[Math.min(buffer.remaining(), 3)];
+        buffer.duplicate().get(header);
+        return parseStream(new ByteBufferBackedInputStream(buffer.duplicate()), ConfigurationFormat.detect(header));
+    }
+
+    /**
+     * Parses the configurations into a snapshot indexed by the IDs of the known configuration keys.
+     */
+    @Nonnull
+    public ConfigurationSnapshot parseSnapshot(final String text) {
+        return ConfigurationSnapshot.of(parseConfigurations(text), baiganConfigClasses.getKeyIds());
+    }
+
+    /**
+     * Parses the configurations of the document into a snapshot indexed by the IDs of the known configuration keys.
+     */
+    @Nonnull
+    public ConfigurationSnapshot parseSnapshot(final ConfigurationDocument document) {
+        return parseSnapshot(document, null);
+    }
+
+    /**
+     * Parses the configurations of the document into a snapshot with the {@link SnapshotParseOptions#defaults()
+     * default options}, see {@link #parseSnapshot(ConfigurationDocument, ConfigurationSnapshot, SnapshotParseOptions)}.
+     *
+     * @param previous The snapshot the document was last parsed into, or {@code null} if there is none
+     */
+    @Nonnull
+    public ConfigurationSnapshot parseSnapshot(final ConfigurationDocument document,
+                                               @Nullable final ConfigurationSnapshot previous) {
+        return parseSnapshot(document, previous, SnapshotParseOptions.defaults());
+    }
+
+    /**
+     * Parses the configurations of the document into a snapshot, reusing the configurations of the previous snapshot
+     * whose entries in the document are unchanged. Entries are compared by a fingerprint of their raw bytes, so that
+     * reloading a large document in which only a few entries have changed only deserializes those.
+     * <p>
+     * Binary documents whose entries refer to names or values shared with preceding entries cannot be compared
+     * entry by entry and are parsed completely, on the calling thread.
+     * <p>
+     * With {@link SnapshotParseOptions#withLazyDeserialization(boolean) lazy deserialization}, the configurations
+     * that are not taken over are only deserialized on their first lookup in the snapshot. Those that cannot be
+     * deserialized then keep their configuration in the previous snapshot.
+     *
+     * @param previous The snapshot the document was last parsed into, or {@code null} if there is none
+     * @param options  How to deserialize the configurations
+     */
+    @Nonnull
+    public ConfigurationSnapshot parseSnapshot(final ConfigurationDocument document,
+                                               @Nullable final ConfigurationSnapshot previous,
+                                               final SnapshotParseOptions options) {
+        if (document == null || document.isEmpty() || !hasSelfContainedEntries(document)) {
+            return ConfigurationSnapshot.of(parseDocument(document), baiganConfigClasses.getKeyIds());
         }
-        try {
-            return Optional.of(objectMapper.readValue(text, type));
-        } catch (JsonProcessingException e) {
+        final ObjectMapper formatObjectMapper = objectMappersByFormat.get(document.getFormat());
+        final ConfigurationFingerprints previousFingerprints = previous == null ? null : previous.getFingerprints();
+        final ConfigurationFingerprints.Builder fingerprints = new ConfigurationFingerprints.Builder(formatObjectMapper);
+        try (JsonParser parser = formatObjectMapper.createParser(document.getContent())) {
+            final List<ConfigurationEntry> entries = new SelectiveConfigurationReader(formatObjectMapper,
+                    getValueReaders(), options.getDeserializationExecutor(),
+                    options.getParallelDeserializationThreshold()).readEntries(
+                    parser, document.getContent(), entryFactoriesByFormat.get(document.getFormat()),
+                    previousFingerprints != null && previousFingerprints.isCreatedBy(formatObjectMapper)
+                            ? previousFingerprints : null,
+                    fingerprints, options.isLazyDeserialization(), previous);
+            return ConfigurationSnapshot.ofEntries(entries, baiganConfigClasses.getKeyIds(), fingerprints.build());
+        } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Parses the configurations of a buffer into a snapshot, see {@link #parseBuffer(ByteBuffer)}.
+     */
+    @Nonnull
+    public ConfigurationSnapshot parseSnapshot(final ByteBuffer buffer) {
+        return ConfigurationSnapshot.of(parseBuffer(buffer), baiganConfigClasses.getKeyIds());
+    }
+
     void setObjectMapper(final ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        // the binary formats share the configuration and modules of the given object mapper
+        final Map<ConfigurationFormat, ObjectMapper> objectMappersByFormat = new EnumMap<>(ConfigurationFormat.class);
+        final Map<ConfigurationFormat, JsonFactory> entryFactoriesByFormat = new EnumMap<>(ConfigurationFormat.class);
+        for (final ConfigurationFormat format : ConfigurationFormat.values()) {
+            final ObjectMapper formatObjectMapper =
+                    format == ConfigurationFormat.JSON ? objectMapper : objectMapper.copyWith(format.createFactory());
+            objectMappersByFormat.put(format, formatObjectMapper);
+            // single entries of a Smile document are read without the header of the document
+            entryFactoriesByFormat.put(format, format == ConfigurationFormat.SMILE
+                    ? SmileFactory.builder().disable(SmileParser.Feature.REQUIRE_HEADER).build()
+                    : formatObjectMapper.getFactory());
+        }
+        this.objectMappersByFormat = objectMappersByFormat;
+        this.entryFactoriesByFormat = entryFactoriesByFormat;
+    }
+
+    private List<Configuration<?>> readConfigurations(final ObjectMapper formatObjectMapper,
+                                                      final JsonParser parser) throws IOException {
+        return createReader(formatObjectMapper).readConfigurations(parser);
+    }
+
+    private SelectiveConfigurationReader createReader(final ObjectMapper formatObjectMapper) {
+        return new SelectiveConfigurationReader(formatObjectMapper, getValueReaders());
     }
 
-    private Optional<Configuration<?>> convertToTypedConfig(final Configuration<JsonNode> jsonConfig) {
-        final Optional<Configuration<?>> typedConfig = Optional.ofNullable(baiganConfigClasses.getConfigTypesByKey().get(jsonConfig.getAlias()))
-                .map(targetClass -> deserializeConfig(jsonConfig, targetClass));
-        if (typedConfig.isEmpty()) {
-            LOG.info(
-                "Alias [{}] in configuration source does not match any method of any @BaiganConfig interface, ignoring it.",
-                jsonConfig.getAlias()
-            );
+    /**
+     * The readers are created on the first parse, usually the initial load of a repository, and reused by all
+     * formats, as the deserializers do not depend on the format. They are only created again if the object mapper
+     * or the known keys are replaced.
+     */
+    private ConfigurationValueReaders getValueReaders() {
+        final Map<String, Type> configTypesByKey = baiganConfigClasses.getConfigTypesByKey();
+        ConfigurationValueReaders readers = valueReaders;
+        if (readers == null || !readers.isCreatedFor(objectMapper, configTypesByKey)) {
+            readers = ConfigurationValueReaders.create(objectMapper, configTypesByKey);
+            valueReaders = readers;
         }
-        return typedConfig;
+        return readers;
     }
 
-    private <T> Configuration<?> deserializeConfig(Configuration<JsonNode> config, Type targetClass) {
-        Set<Condition<T>> typedConditions = Optional.ofNullable(config.getConditions()).orElse(Set.of()).stream().map(c -> {
-            try {
-                return new Condition<>(c.getParamName(), c.getConditionType(), objectMapper.<T>treeToValue(c.getValue(), objectMapper.constructType(targetClass)));
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException(e);
-            }
-        }).collect(toSet());
-        try {
-            T typedDefaultValue = objectMapper.treeToValue(config.getDefaultValue(), objectMapper.constructType(targetClass));
-            return new Configuration<>(config.getAlias(), config.getDescription(), typedConditions, typedDefaultValue);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+    /**
+     * Whether each entry of the document can be read on its own. Smile documents may refer back to names and values
+     * of preceding entries, which the header of the document declares, and CBOR documents may do the same with
+     * string references. The search for the string reference tag may have false positives, which only cost a
+     * complete parse.
+     */
+    private static boolean hasSelfContainedEntries(final ConfigurationDocument document) {
+        final byte[] content = document.getContent();
+        switch (document.getFormat()) {
+            case SMILE:
+                return content.length > 3 && (content[3] & SMILE_HEADER_SHARED_OR_RAW_MASK) == 0;
+            case CBOR:
+                for (int i = 0; i + 2 < content.length; i++) {
+                    if ((content[i] & 0xFF) == 0xD9 && content[i + 1] == 0x01 && content[i + 2] == 0x00) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return true;
         }
     }
 }
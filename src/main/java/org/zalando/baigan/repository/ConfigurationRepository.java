@@ -3,7 +3,9 @@ package org.zalando.baigan.repository;
 import org.zalando.baigan.model.Configuration;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * The {@link ConfigurationRepository} provides the actual configuration values. A Spring Bean of this type
@@ -15,5 +17,31 @@ public interface ConfigurationRepository {
     @Nonnull
     Optional<Configuration> get(@Nonnull final String key);
 
+    /**
+     * Returns the configurations currently held by this repository. Repositories that load all configurations at
+     * once should return the same instance until they reload, which allows callers to cache values derived from it.
+     *
+     * @return The current snapshot, or {@code null} if this repository only supports lookups by key.
+     */
+    @Nullable
+    default ConfigurationSnapshot getSnapshot() {
+        return null;
+    }
+
+    /**
+     * Registers a listener that is notified with the new snapshot whenever this repository has replaced its
+     * {@link #getSnapshot() snapshot}, on the thread that loaded it. Repositories without snapshots never notify
+     * their listeners. To be notified of the keys that changed, on a thread of its own, subscribe to a
+     * {@link ConfigurationChangePublisher} of this repository instead.
+     *
+     * @param listener The listener, which should return quickly, as it delays the publication to later listeners
+     * @return The registration to remove the listener with
+     */
+    @Nonnull
+    default SnapshotListenerRegistration addSnapshotListener(@Nonnull final Consumer<ConfigurationSnapshot> listener) {
+        return () -> {
+        };
+    }
+
     void put(@Nonnull final String key, @Nonnull final String value);
 }
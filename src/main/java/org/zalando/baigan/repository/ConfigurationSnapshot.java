@@ -0,0 +1,335 @@
+package org.zalando.baigan.repository;
+
+import com.google.common.collect.ImmutableMap;
+import org.zalando.baigan.model.Configuration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * An immutable set of configurations as loaded by a {@link ConfigurationRepository} at one point in time.
+ * <p>
+ * Repositories replace their snapshot as a whole on every reload, so that readers holding a reference to a snapshot
+ * always see consistent configurations. A changed snapshot can be detected by comparing references.
+ * <p>
+ * Configurations of keys with an ID assigned by {@link org.zalando.baigan.proxy.BaiganConfigClasses} are stored in
+ * an array indexed by that ID, all others in a map by their alias. The former may be deserialized lazily, on their
+ * first lookup in the snapshot.
+ * <p>
+ * Each snapshot has a version that is higher than those of all snapshots created before it, so that the versions of
+ * the snapshots of a repository increase with every reload.
+ */
+public final class ConfigurationSnapshot {
+
+    private static final AtomicLong LAST_VERSION = new AtomicLong();
+
+    private static final ConfigurationSnapshot EMPTY = new ConfigurationSnapshot(
+            ImmutableMap.of(), new Configuration<?>[0], null, ImmutableMap.of(), 0, null
+    );
+
+    private final Map<String, Integer> keyIds;
+    private final Configuration<?>[] configurationsById;
+    private final ConfigurationEntry[] lazyEntriesById;
+    private final Map<String, Configuration<?>> configurationsByAlias;
+    private final int size;
+    private final ConfigurationFingerprints fingerprints;
+    private final long version;
+
+    private ConfigurationSnapshot(final Map<String, Integer> keyIds, final Configuration<?>[] configurationsById,
+                                  @Nullable final ConfigurationEntry[] lazyEntriesById,
+                                  final Map<String, Configuration<?>> configurationsByAlias, final int size,
+                                  @Nullable final ConfigurationFingerprints fingerprints) {
+        this.keyIds = keyIds;
+        this.configurationsById = configurationsById;
+        this.lazyEntriesById = lazyEntriesById;
+        this.configurationsByAlias = configurationsByAlias;
+        this.size = size;
+        this.fingerprints = fingerprints;
+        this.version = LAST_VERSION.incrementAndGet();
+    }
+
+    @Nonnull
+    public static ConfigurationSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a snapshot without key IDs, storing all configurations by their alias.
+     *
+     * @throws IllegalArgumentException if two configurations have the same alias
+     */
+    @Nonnull
+    public static ConfigurationSnapshot of(final Collection<? extends Configuration<?>> configurations) {
+        return of(configurations, ImmutableMap.of());
+    }
+
+    /**
+     * @param keyIds The dense IDs of the known keys, see {@link org.zalando.baigan.proxy.BaiganConfigClasses#getKeyIds()}
+     * @throws IllegalArgumentException if two configurations have the same alias
+     */
+    @Nonnull
+    public static ConfigurationSnapshot of(final Collection<? extends Configuration<?>> configurations,
+                                           final Map<String, Integer> keyIds) {
+        final Configuration<?>[] configurationsById = new Configuration<?>[keyIds.size()];
+        final ImmutableMap.Builder<String, Configuration<?>> configurationsByAlias = ImmutableMap.builder();
+        final Set<String> aliases = new HashSet<>();
+        for (final Configuration<?> configuration : configurations) {
+            final String alias = configuration.getAlias();
+            checkArgument(aliases.add(alias), "Duplicate configuration for alias %s", alias);
+            final Integer keyId = alias == null ? null : keyIds.get(alias);
+            if (keyId != null) {
+                configurationsById[keyId] = configuration;
+            } else {
+                configurationsByAlias.put(alias, configuration);
+            }
+        }
+        return new ConfigurationSnapshot(keyIds, configurationsById, null, configurationsByAlias.build(),
+                aliases.size(), null);
+    }
+
+    /**
+     * Creates a snapshot of the entries of a document. Entries of keys with an ID that have not been deserialized
+     * yet are deserialized on their first lookup, all others right away.
+     *
+     * @param fingerprints The fingerprints of the document entries
+     * @throws IllegalArgumentException if two entries have the same alias
+     */
+    @Nonnull
+    static ConfigurationSnapshot ofEntries(final List<ConfigurationEntry> entries, final Map<String, Integer> keyIds,
+                                           final ConfigurationFingerprints fingerprints) {
+        final Configuration<?>[] configurationsById = new Configuration<?>[keyIds.size()];
+        ConfigurationEntry[] lazyEntriesById = null;
+        final ImmutableMap.Builder<String, Configuration<?>> configurationsByAlias = ImmutableMap.builder();
+        final Set<String> aliases = new HashSet<>();
+        for (final ConfigurationEntry entry : entries) {
+            final String alias = entry.getAlias();
+            checkArgument(aliases.add(alias), "Duplicate configuration for alias %s", alias);
+            final Integer keyId = alias == null ? null : keyIds.get(alias);
+            final Configuration<?> configuration = entry.getIfDeserialized();
+            if (keyId != null && configuration != null) {
+                configurationsById[keyId] = configuration;
+            } else if (keyId != null) {
+                if (lazyEntriesById == null) {
+                    lazyEntriesById = new ConfigurationEntry[keyIds.size()];
+                }
+                lazyEntriesById[keyId] = entry;
+            } else {
+                final Configuration<?> deserialized = entry.get();
+                if (deserialized != null) {
+                    configurationsByAlias.put(alias, deserialized);
+                }
+            }
+        }
+        return new ConfigurationSnapshot(keyIds, configurationsById, lazyEntriesById, configurationsByAlias.build(),
+                aliases.size(), fingerprints);
+    }
+
+    /**
+     * Merges snapshots, taking the configuration of each key from the first snapshot that has one. Configurations
+     * that are deserialized lazily stay lazy, unless the snapshots have different key IDs.
+     */
+    @Nonnull
+    static ConfigurationSnapshot merge(final List<ConfigurationSnapshot> snapshots) {
+        Map<String, Integer> keyIds = ImmutableMap.of();
+        for (final ConfigurationSnapshot snapshot : snapshots) {
+            if (!snapshot.keyIds.isEmpty()) {
+                keyIds = snapshot.keyIds;
+                break;
+            }
+        }
+        final Configuration<?>[] configurationsById = new Configuration<?>[keyIds.size()];
+        final ConfigurationEntry[] lazyEntriesById = new ConfigurationEntry[keyIds.size()];
+        boolean hasLazyEntries = false;
+        final Map<String, Configuration<?>> configurationsByAlias = new HashMap<>();
+        for (final ConfigurationSnapshot snapshot : snapshots) {
+            if (snapshot.keyIds == keyIds || snapshot.keyIds.equals(keyIds)) {
+                for (int keyId = 0; keyId < configurationsById.length; keyId++) {
+                    if (configurationsById[keyId] != null || lazyEntriesById[keyId] != null) {
+                        continue;
+                    }
+                    configurationsById[keyId] = snapshot.configurationsById[keyId];
+                    if (configurationsById[keyId] == null && snapshot.lazyEntriesById != null
+                            && snapshot.lazyEntriesById[keyId] != null) {
+                        lazyEntriesById[keyId] = snapshot.lazyEntriesById[keyId];
+                        hasLazyEntries = true;
+                    }
+                }
+                snapshot.configurationsByAlias.forEach(configurationsByAlias::putIfAbsent);
+            } else {
+                for (final Map.Entry<String, Configuration<?>> configuration : snapshot.getConfigurations().entrySet()) {
+                    final Integer keyId = keyIds.get(configuration.getKey());
+                    if (keyId == null) {
+                        configurationsByAlias.putIfAbsent(configuration.getKey(), configuration.getValue());
+                    } else if (configurationsById[keyId] == null && lazyEntriesById[keyId] == null) {
+                        configurationsById[keyId] = configuration.getValue();
+                    }
+                }
+            }
+        }
+        int size = configurationsByAlias.size();
+        for (int keyId = 0; keyId < configurationsById.length; keyId++) {
+            if (configurationsById[keyId] != null || lazyEntriesById[keyId] != null) {
+                size++;
+            }
+        }
+        return new ConfigurationSnapshot(keyIds, configurationsById, hasLazyEntries ? lazyEntriesById : null,
+                ImmutableMap.copyOf(configurationsByAlias), size, null);
+    }
+
+    @Nullable
+    public Configuration<?> get(@Nonnull final String key) {
+        final Integer keyId = keyIds.get(key);
+        return keyId != null ? getById(keyId) : configurationsByAlias.get(key);
+    }
+
+    /**
+     * Looks up a configuration by the ID of its key, falling back to the alias for keys without ID.
+     *
+     * @param keyId The ID assigned to the key by the {@link org.zalando.baigan.proxy.BaiganConfigClasses} this
+     *              snapshot was created with, or a negative value
+     */
+    @Nullable
+    public Configuration<?> get(final int keyId, @Nonnull final String key) {
+        if (keyId >= 0 && keyId < configurationsById.length) {
+            return getById(keyId);
+        }
+        return configurationsByAlias.get(key);
+    }
+
+    /**
+     * @return All configurations of this snapshot by their alias, deserializing those that have not been yet.
+     */
+    @Nonnull
+    public Map<String, Configuration<?>> getConfigurations() {
+        final ImmutableMap.Builder<String, Configuration<?>> configurations = ImmutableMap.builderWithExpectedSize(size);
+        for (int keyId = 0; keyId < configurationsById.length; keyId++) {
+            final Configuration<?> configuration = getById(keyId);
+            if (configuration != null) {
+                configurations.put(configuration.getAlias(), configuration);
+            }
+        }
+        return configurations.putAll(configurationsByAlias).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Determines the keys whose configuration differs between the previous snapshot and this one, including keys
+     * that were added or removed. Configurations that are deserialized lazily are compared by the raw bytes of their
+     * entries where possible, so that they are not deserialized just for the comparison.
+     *
+     * @return The changed keys, those with an ID in the order of their IDs first.
+     */
+    @Nonnull
+    List<String> getChangedKeys(@Nonnull final ConfigurationSnapshot previous) {
+        final Set<String> keys = new LinkedHashSet<>();
+        previous.collectKeys(keys);
+        collectKeys(keys);
+        final List<String> changedKeys = new ArrayList<>();
+        for (final String key : keys) {
+            if (!isSame(previous.peek(key), peek(key))) {
+                changedKeys.add(key);
+            }
+        }
+        return changedKeys;
+    }
+
+    @Nullable
+    private Configuration<?> getById(final int keyId) {
+        final Configuration<?> configuration = configurationsById[keyId];
+        if (configuration != null || lazyEntriesById == null) {
+            return configuration;
+        }
+        final ConfigurationEntry lazyEntry = lazyEntriesById[keyId];
+        return lazyEntry == null ? null : lazyEntry.get();
+    }
+
+    private void collectKeys(final Set<String> keys) {
+        final String[] keysById = new String[configurationsById.length];
+        keyIds.forEach((key, keyId) -> keysById[keyId] = key);
+        for (int keyId = 0; keyId < configurationsById.length; keyId++) {
+            if (configurationsById[keyId] != null || (lazyEntriesById != null && lazyEntriesById[keyId] != null)) {
+                keys.add(keysById[keyId]);
+            }
+        }
+        keys.addAll(configurationsByAlias.keySet());
+    }
+
+    /**
+     * @return The configuration of the key, its {@link ConfigurationEntry} if it has not been deserialized yet, or
+     * {@code null} if there is none.
+     */
+    @Nullable
+    private Object peek(final String key) {
+        final Integer keyId = keyIds.get(key);
+        if (keyId == null) {
+            return configurationsByAlias.get(key);
+        }
+        final Configuration<?> configuration = configurationsById[keyId];
+        if (configuration != null || lazyEntriesById == null) {
+            return configuration;
+        }
+        final ConfigurationEntry lazyEntry = lazyEntriesById[keyId];
+        if (lazyEntry == null) {
+            return null;
+        }
+        final Configuration<?> deserialized = lazyEntry.getIfDeserialized();
+        return deserialized != null ? deserialized : lazyEntry;
+    }
+
+    private static boolean isSame(@Nullable final Object previous, @Nullable final Object current) {
+        if (previous == current) {
+            return true;
+        }
+        if (previous == null || current == null) {
+            return false;
+        }
+        if (previous instanceof ConfigurationEntry && current instanceof ConfigurationEntry) {
+            return ((ConfigurationEntry) previous).hasSameContent((ConfigurationEntry) current);
+        }
+        return Objects.equals(deserialize(previous), deserialize(current));
+    }
+
+    @Nullable
+    private static Configuration<?> deserialize(final Object configuration) {
+        return configuration instanceof ConfigurationEntry
+                ? ((ConfigurationEntry) configuration).get()
+                : (Configuration<?>) configuration;
+    }
+
+    /**
+     * @return The entry of the configuration of the key, without deserializing it, or {@code null} if there is none.
+     */
+    @Nullable
+    ConfigurationEntry getEntry(final String key) {
+        final Integer keyId = keyIds.get(key);
+        final Configuration<?> configuration = keyId != null ? configurationsById[keyId] : configurationsByAlias.get(key);
+        if (configuration != null) {
+            return ConfigurationEntry.of(configuration);
+        }
+        return keyId != null && lazyEntriesById != null ? lazyEntriesById[keyId] : null;
+    }
+
+    @Nullable
+    ConfigurationFingerprints getFingerprints() {
+        return fingerprints;
+    }
+}
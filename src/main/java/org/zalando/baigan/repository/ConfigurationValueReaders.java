@@ -0,0 +1,98 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.zalando.baigan.model.Condition;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The readers of the typed fields of the configurations of all known keys, created once per object mapper.
+ * <p>
+ * Each reader has its type resolved and its deserializer looked up when it is created, so that reading a
+ * configuration only runs the deserializer. Keys with the same type share their readers.
+ */
+final class ConfigurationValueReaders {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Type> configTypesByKey;
+    private final ObjectReader descriptionReader;
+    private final Map<String, KeyReaders> readersByKey;
+
+    private ConfigurationValueReaders(final ObjectMapper objectMapper, final Map<String, Type> configTypesByKey,
+                                      final ObjectReader descriptionReader,
+                                      final Map<String, KeyReaders> readersByKey) {
+        this.objectMapper = objectMapper;
+        this.configTypesByKey = configTypesByKey;
+        this.descriptionReader = descriptionReader;
+        this.readersByKey = readersByKey;
+    }
+
+    /**
+     * @param configTypesByKey The types of the known keys, see
+     *                         {@link org.zalando.baigan.proxy.BaiganConfigClasses#getConfigTypesByKey()}
+     */
+    static ConfigurationValueReaders create(final ObjectMapper objectMapper, final Map<String, Type> configTypesByKey) {
+        final TypeFactory typeFactory = objectMapper.getTypeFactory();
+        final Map<Type, KeyReaders> readersByType = new HashMap<>();
+        final Map<String, KeyReaders> readersByKey = new HashMap<>();
+        configTypesByKey.forEach((key, type) -> readersByKey.put(key, readersByType.computeIfAbsent(type, ignored -> {
+            final JavaType valueType = typeFactory.constructType(type);
+            final JavaType conditionsType = typeFactory.constructCollectionType(List.class,
+                    typeFactory.constructParametricType(Condition.class, valueType));
+            return new KeyReaders(objectMapper.readerFor(valueType), objectMapper.readerFor(conditionsType));
+        })));
+        return new ConfigurationValueReaders(objectMapper, configTypesByKey, objectMapper.readerFor(String.class),
+                readersByKey);
+    }
+
+    /**
+     * Whether the readers were created for the given object mapper and key types, which are compared by identity.
+     */
+    boolean isCreatedFor(final ObjectMapper objectMapper, final Map<String, Type> configTypesByKey) {
+        return this.objectMapper == objectMapper && this.configTypesByKey == configTypesByKey;
+    }
+
+    ObjectReader getDescriptionReader() {
+        return descriptionReader;
+    }
+
+    /**
+     * @return The readers of the key, or {@code null} if the key is unknown.
+     */
+    @Nullable
+    KeyReaders get(final String key) {
+        return readersByKey.get(key);
+    }
+
+    static final class KeyReaders {
+
+        private final ObjectReader valueReader;
+        private final ObjectReader conditionsReader;
+
+        private KeyReaders(final ObjectReader valueReader, final ObjectReader conditionsReader) {
+            this.valueReader = valueReader;
+            this.conditionsReader = conditionsReader;
+        }
+
+        /**
+         * Reads the default value.
+         */
+        ObjectReader getValueReader() {
+            return valueReader;
+        }
+
+        /**
+         * Reads the list of conditions.
+         */
+        ObjectReader getConditionsReader() {
+            return conditionsReader;
+        }
+    }
+}
@@ -1,77 +1,121 @@
 package org.zalando.baigan.repository;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zalando.baigan.model.Configuration;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
-import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A {@link ConfigurationRepository} implementation supporting a file on
- * Classpath as the persistence storage for the Baigan configuration. The file is cached.
- * The cache refresh time can be specified.
+ * Classpath as the persistence storage for the Baigan configuration.
+ * <p>
+ * The file is loaded once on creation and then refreshed in the background: changes reported by a
+ * {@link WatchService} on its directory trigger a refresh right away, while polling in the given refresh interval
+ * catches changes the file system does not report. A refresh skips reading the file if its size, modification
+ * time and identity are unchanged, and skips parsing it if its content is unchanged. Lookups only read the
+ * current {@link ConfigurationSnapshot}.
+ * <p>
+ * The file may be in any {@link ConfigurationFormat}, which is detected by its content.
  *
  * @author mchand
  */
-public class FileSystemConfigurationRepository implements ConfigurationRepository {
+public class FileSystemConfigurationRepository implements ConfigurationRepository, Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemConfigurationRepository.class);
 
     private final ConfigurationParser configurationParser;
-    private final LoadingCache<String, Map<String, Configuration<?>>> cachedConfigurations;
+    private final SnapshotParseOptions parseOptions;
     private final String fileName;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final boolean loadsResourceAsText;
+    private final boolean loadsConfigurationsItself;
+    private volatile ConfigurationSnapshot snapshot;
+    private final SnapshotListeners snapshotListeners = new SnapshotListeners();
+
+    private FileState loadedFileState;
+    private HashCode loadedContentHash;
+
+    private ScheduledFuture<?> pollingTask;
+    private WatchService watchService;
+
+    /**
+     * @param ownsExecutor Whether the executor was created for this repository alone, and is thus shut down when
+     *                     the repository is closed
+     */
+    FileSystemConfigurationRepository(final String fileName, final Duration refreshInterval,
+                                      final ScheduledExecutorService executor, final boolean ownsExecutor,
+                                      final ConfigurationParser configurationParser,
+                                      final SnapshotParseOptions parseOptions) {
+        checkNotNull(fileName, "fileName is required");
+        checkArgument(!refreshInterval.isNegative(), "refreshInterval has to be >= 0");
+        checkNotNull(executor, "executor is required");
 
-    FileSystemConfigurationRepository(final String fileName, Duration refreshInterval, final ConfigurationParser configurationParser) {
         this.fileName = fileName;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
         this.configurationParser = configurationParser;
+        this.parseOptions = checkNotNull(parseOptions, "parseOptions is required");
+        this.loadsResourceAsText = isOverridden("loadResource");
+        this.loadsConfigurationsItself = isOverridden("loadConfigurations");
 
-        cachedConfigurations = CacheBuilder.newBuilder()
-                .refreshAfterWrite(refreshInterval)
-                .build(new CacheLoader<>() {
-                    @Override
-                    public Map<String, Configuration<?>> load(String filename) {
-                        try {
-                            return loadConfigurations(filename);
-                        } catch (final Exception e) {
-                            LOG.error("Failed to refresh configuration, keeping old state.", e);
-                            throw e;
-                        }
-                    }
-
-                    @Override
-                    public ListenableFuture<Map<String, Configuration<?>>> reload(
-                            String key, Map<String, Configuration<?>> oldValue)
-                            throws Exception {
-                        LOG.info("Reloading the configuration from file [{}]", key);
-                        return super.reload(key, oldValue);
-                    }
-                });
-        cachedConfigurations.put(fileName, loadConfigurations(fileName));
+        final FileState fileState = readFileState();
+        final ConfigurationDocument document = ConfigurationDocument.of(loadContent(fileName));
+        this.snapshot = parse(document, null);
+        this.loadedFileState = fileState;
+        this.loadedContentHash = hash(document);
+
+        if (!refreshInterval.isZero()) {
+            setupRefresh(refreshInterval);
+        }
     }
 
     @Nonnull
     @Override
     public Optional<Configuration> get(@Nonnull String key) {
-        try {
-            return Optional.ofNullable(cachedConfigurations.get(fileName).get(key));
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Exception while trying to get configuration for key " + key, e);
-        }
+        return Optional.ofNullable(snapshot.get(key));
+    }
+
+    @Nonnull
+    @Override
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nonnull
+    @Override
+    public SnapshotListenerRegistration addSnapshotListener(@Nonnull final Consumer<ConfigurationSnapshot> listener) {
+        return snapshotListeners.add(listener);
     }
 
     @Override
@@ -79,25 +123,200 @@ public class FileSystemConfigurationRepository implements ConfigurationRepositor
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Stops refreshing the configuration. The executor is shut down if it was created by the
+     * {@link FileSystemConfigurationRepositoryBuilder}, and left running if it was given, as it may be shared.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (pollingTask != null) {
+            pollingTask.cancel(false);
+        }
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
 
-    protected Map<String, Configuration<?>> loadConfigurations(String filename) {
-        final String configurationText = loadResource(filename);
-        final Collection<Configuration<?>> configurations = configurationParser.parseConfigurations(configurationText);
+    /**
+     * Reloads the configurations if the file has changed since it was last loaded.
+     *
+     * @param force Whether to compare the content even if the attributes of the file are unchanged, as done when
+     *              the file system reported a change to it
+     */
+    synchronized void refresh(final boolean force) {
+        try {
+            final FileState fileState = readFileState();
+            if (!force && fileState.equals(loadedFileState)) {
+                return;
+            }
+            final ConfigurationDocument document = ConfigurationDocument.of(loadContent(fileName));
+            final HashCode contentHash = hash(document);
+            if (!contentHash.equals(loadedContentHash)) {
+                LOG.info("Reloading the configuration from file [{}]", fileName);
+                snapshot = parse(document, snapshot);
+                loadedContentHash = contentHash;
+                snapshotListeners.notifyListeners(snapshot);
+            }
+            loadedFileState = fileState;
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to refresh configuration, keeping old state.", e);
+        }
+    }
 
-        final ImmutableMap.Builder<String, Configuration<?>> builder = ImmutableMap.builder();
-        for (Configuration<?> each : configurations) {
-            builder.put(each.getAlias(), each);
+    private ConfigurationSnapshot parse(final ConfigurationDocument document,
+                                        @Nullable final ConfigurationSnapshot previous) {
+        if (loadsConfigurationsItself) {
+            return ConfigurationSnapshot.of(loadConfigurations(fileName).values());
         }
+        return configurationParser.parseSnapshot(document, previous, parseOptions);
+    }
 
-        return builder.build();
+    /**
+     * Loads the configurations of the given file the way the repository does, by their alias.
+     * <p>
+     * If a subclass overrides this method, the repository loads the configurations through it whenever the content
+     * of the file has changed, instead of parsing the content itself.
+     *
+     * @deprecated Override {@link #loadContent(String)} to change how the file is read instead, so that the
+     * configurations of unchanged entries are reused on reload.
+     */
+    @Deprecated
+    protected Map<String, Configuration<?>> loadConfigurations(final String filename) {
+        final ConfigurationDocument document = ConfigurationDocument.of(loadContent(filename));
+        return configurationParser.parseSnapshot(document, null, parseOptions).getConfigurations();
     }
 
+    /**
+     * @return The content of the file, in any {@link ConfigurationFormat}. If a subclass overrides
+     * {@link #loadResource(String)}, the content is read through it instead, as UTF-8 encoded text.
+     */
+    protected byte[] loadContent(final String file) {
+        if (loadsResourceAsText) {
+            return loadResource(file).getBytes(StandardCharsets.UTF_8);
+        }
+        return readFile(file);
+    }
+
+    /**
+     * @return The content of the file as text.
+     * @deprecated Override {@link #loadContent(String)} instead, which supports the binary formats as well. Overrides
+     * of this method are still used to read the file, see {@link #loadContent(String)}.
+     */
+    @Deprecated
     protected String loadResource(final String file) {
+        return new String(readFile(file), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFile(final String file) {
         try {
             final Path filePath = Paths.get(file);
-            return new String(Files.readAllBytes(filePath));
+            return Files.readAllBytes(filePath);
         } catch (final IOException e) {
             throw new UncheckedIOException(e);
         }
     }
+
+    /**
+     * Whether a subclass overrides the hook with the given name, which takes the name of the file.
+     */
+    private boolean isOverridden(final String methodName) {
+        for (Class<?> type = getClass(); type != FileSystemConfigurationRepository.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(methodName, String.class);
+                return true;
+            } catch (final NoSuchMethodException e) {
+                // not declared by this subclass
+            }
+        }
+        return false;
+    }
+
+    private synchronized void setupRefresh(final Duration refreshInterval) {
+        pollingTask = executor.scheduleWithFixedDelay(
+                () -> refresh(false),
+                refreshInterval.toMillis(),
+                refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+
+        final Path file = Paths.get(fileName).toAbsolutePath();
+        final WatchService fileWatchService;
+        try {
+            fileWatchService = file.getFileSystem().newWatchService();
+            watchService = fileWatchService;
+            file.getParent().register(fileWatchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (final IOException | UnsupportedOperationException e) {
+            LOG.info("Cannot watch file [{}] for changes, falling back to polling.", fileName, e);
+            return;
+        }
+        final Thread watcher = new Thread(() -> watch(fileWatchService, file.getFileName()),
+                "baigan-file-watcher-" + file.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(final WatchService watchService, final Path watchedFileName) {
+        try {
+            while (true) {
+                final WatchKey watchKey = watchService.take();
+                boolean fileChanged = false;
+                for (final WatchEvent<?> event : watchKey.pollEvents()) {
+                    fileChanged |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || watchedFileName.equals(event.context());
+                }
+                watchKey.reset();
+                // other changes in the directory may replace a symbolic link to the file, which is detected by
+                // the attributes
+                final boolean force = fileChanged;
+                executor.execute(() -> refresh(force));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ClosedWatchServiceException | RejectedExecutionException e) {
+            LOG.debug("Stopped watching file [{}] for changes.", fileName);
+        }
+    }
+
+    private FileState readFileState() {
+        try {
+            return new FileState(Files.readAttributes(Paths.get(fileName), BasicFileAttributes.class));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HashCode hash(final ConfigurationDocument document) {
+        return Hashing.sha256().hashBytes(document.getContent());
+    }
+
+    private static final class FileState {
+
+        private final long size;
+        private final FileTime lastModifiedTime;
+        private final Object fileKey;
+
+        private FileState(final BasicFileAttributes attributes) {
+            this.size = attributes.size();
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.fileKey = attributes.fileKey();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final FileState that = (FileState) o;
+            return size == that.size && lastModifiedTime.equals(that.lastModifiedTime)
+                    && Objects.equals(fileKey, that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModifiedTime, fileKey);
+        }
+    }
 }
@@ -1,8 +1,13 @@
 package org.zalando.baigan.repository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import static java.util.Objects.requireNonNull;
 
@@ -16,6 +21,10 @@ public class FileSystemConfigurationRepositoryBuilder {
     private String filePath;
     private Duration refreshInterval = Duration.ofMinutes(1);
     private ObjectMapper objectMapper;
+    private ScheduledExecutorService executor;
+    private Executor deserializationExecutor;
+    private long parallelDeserializationThreshold = ConfigurationParser.DEFAULT_PARALLEL_DESERIALIZATION_THRESHOLD;
+    private boolean lazyDeserialization;
     private final ConfigurationParser configurationParser;
 
     FileSystemConfigurationRepositoryBuilder(final ConfigurationParser configurationParser) {
@@ -50,13 +59,57 @@ public class FileSystemConfigurationRepositoryBuilder {
     }
 
     /**
-     * @param refreshInterval The interval between the starts of subsequent runs to refresh the configuration.
+     * @param refreshInterval The interval between subsequent checks of the file for changes, in addition to the
+     *                        changes reported by the file system. A refresh interval of 0 disables refreshing.
      */
     public FileSystemConfigurationRepositoryBuilder refreshInterval(Duration refreshInterval) {
         this.refreshInterval = refreshInterval;
         return this;
     }
 
+    /**
+     * @param executor The {@link ScheduledExecutorService} used to run the configuration refresh. If this is not
+     *                 specified, a new {@link ScheduledThreadPoolExecutor} with a single daemon thread is used, which
+     *                 is shut down when the repository is closed.
+     */
+    public FileSystemConfigurationRepositoryBuilder executor(ScheduledExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param deserializationExecutor The executor to deserialize the configurations of large files on in parallel,
+     *                                e.g. {@link ForkJoinPool#commonPool()}. By default, the configurations are
+     *                                deserialized on the thread loading the file only.
+     */
+    public FileSystemConfigurationRepositoryBuilder deserializationExecutor(final Executor deserializationExecutor) {
+        this.deserializationExecutor = deserializationExecutor;
+        return this;
+    }
+
+    /**
+     * @param parallelDeserializationThreshold The number of bytes of changed configurations in a file from which on
+     *                                         they are deserialized on the
+     *                                         {@link #deserializationExecutor(Executor) deserialization executor}.
+     *                                         Defaults to 1 MiB.
+     */
+    public FileSystemConfigurationRepositoryBuilder parallelDeserializationThreshold(final long parallelDeserializationThreshold) {
+        this.parallelDeserializationThreshold = parallelDeserializationThreshold;
+        return this;
+    }
+
+    /**
+     * @param lazyDeserialization Whether to deserialize each configuration on its first use only, instead of all
+     *                            configurations of the file whenever it is loaded. This makes loading large files
+     *                            cheap if only a few of their configurations are used, but configurations that
+     *                            cannot be deserialized are then only reported on first use. They keep their value
+     *                            from before the reload, or are treated as missing if they had none.
+     */
+    public FileSystemConfigurationRepositoryBuilder lazyDeserialization(final boolean lazyDeserialization) {
+        this.lazyDeserialization = lazyDeserialization;
+        return this;
+    }
+
     public FileSystemConfigurationRepository build() {
         requireNonNull(filePath, "filePath must not be null");
 
@@ -64,6 +117,22 @@ public class FileSystemConfigurationRepositoryBuilder {
             configurationParser.setObjectMapper(objectMapper);
         }
 
-        return new FileSystemConfigurationRepository(filePath, refreshInterval, configurationParser);
+        final boolean ownsExecutor = executor == null;
+        final ScheduledExecutorService refreshExecutor = ownsExecutor
+                ? new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                        .setNameFormat("baigan-file-refresh-%d")
+                        .setDaemon(true)
+                        .build())
+                : executor;
+
+        return new FileSystemConfigurationRepository(filePath, refreshInterval, refreshExecutor, ownsExecutor,
+                configurationParser, createParseOptions());
+    }
+
+    private SnapshotParseOptions createParseOptions() {
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(lazyDeserialization);
+        return deserializationExecutor == null
+                ? options
+                : options.withParallelDeserialization(deserializationExecutor, parallelDeserializationThreshold);
     }
 }
@@ -1,41 +1,62 @@
 package org.zalando.baigan.repository;
 
-import com.google.common.collect.ImmutableMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.repository.aws.S3AsyncFileLoader;
 import org.zalando.baigan.repository.aws.S3FileLoader;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A {@link ConfigurationRepository} implementation that loads the configuration from an S3 bucket in regular
- * intervals. It can read KMS-encrypted configuration files.
+ * intervals. It can read KMS-encrypted configuration files, in any {@link ConfigurationFormat} denoted by the
+ * content type of the object or detected by its content.
+ * <p>
+ * If a snapshot file is configured, the last loaded configuration is stored in it, and a sufficiently recent
+ * snapshot file is served on startup while the configuration is loaded from S3 in the background.
+ * <p>
+ * With asynchronous loading, the configuration is loaded with the non-blocking AWS clients and the executor is
+ * only used to schedule refreshes, so that it can be shared by many repositories. The configuration is parsed on a
+ * separate executor, so that parsing a large configuration does not delay the refreshes of the others.
  */
 public class S3ConfigurationRepository implements ConfigurationRepository {
 
     private static final Logger LOG = LoggerFactory.getLogger(S3ConfigurationRepository.class);
 
     private final ConfigurationParser configurationParser;
+    private final SnapshotParseOptions parseOptions;
+    private final String bucketName;
+    private final String key;
     private final S3FileLoader s3Loader;
+    private final S3AsyncFileLoader s3AsyncLoader;
     private final Duration refreshInterval;
     private final ScheduledExecutorService executor;
-    private volatile Map<String, Configuration<?>> configurationsMap = ImmutableMap.of();
+    private final Executor parseExecutor;
+    private final SnapshotFile snapshotFile;
+    private volatile ConfigurationSnapshot snapshot = ConfigurationSnapshot.empty();
+    private final SnapshotListeners snapshotListeners = new SnapshotListeners();
 
     S3ConfigurationRepository(@Nonnull final String bucketName, @Nonnull final String key,
                               final Duration refreshInterval, final ScheduledExecutorService executor,
-                              final S3Client s3Client, final KmsClient kmsClient, ConfigurationParser configurationParser) {
+                              final S3Client s3Client, final KmsClient kmsClient, ConfigurationParser configurationParser,
+                              final SnapshotParseOptions parseOptions, @Nullable final SnapshotFile snapshotFile) {
         checkNotNull(bucketName, "bucketName is required");
         checkNotNull(key, "key is required");
         checkArgument(!refreshInterval.isNegative(), "refreshInterval has to be >= 0");
@@ -43,21 +64,87 @@ public class S3ConfigurationRepository implements ConfigurationRepository {
         checkNotNull(s3Client, "s3Client is required");
         checkNotNull(kmsClient, "kmsClient is required");
 
+        this.bucketName = bucketName;
+        this.key = key;
         this.refreshInterval = refreshInterval;
         this.executor = executor;
+        this.parseExecutor = executor;
         this.s3Loader = new S3FileLoader(bucketName, key, s3Client, kmsClient);
+        this.s3AsyncLoader = null;
         this.configurationParser = configurationParser;
+        this.parseOptions = checkNotNull(parseOptions, "parseOptions is required");
+        this.snapshotFile = snapshotFile;
 
-        loadConfigurations();
-        if (!refreshInterval.isZero()) {
+        if (loadSnapshotFile()) {
+            // refreshes are only scheduled once the initial load is done, so that they never overlap with it
+            executor.execute(() -> {
+                refreshConfigurations();
+                setupRefresh();
+            });
+        } else {
+            loadConfigurations();
             setupRefresh();
         }
     }
 
+    S3ConfigurationRepository(@Nonnull final String bucketName, @Nonnull final String key,
+                              final Duration refreshInterval, final ScheduledExecutorService executor,
+                              final Executor parseExecutor, final S3AsyncClient s3Client, final KmsAsyncClient kmsClient,
+                              ConfigurationParser configurationParser, final SnapshotParseOptions parseOptions,
+                              @Nullable final SnapshotFile snapshotFile) {
+        checkNotNull(bucketName, "bucketName is required");
+        checkNotNull(key, "key is required");
+        checkArgument(!refreshInterval.isNegative(), "refreshInterval has to be >= 0");
+        checkNotNull(executor, "executor is required");
+        checkNotNull(parseExecutor, "parseExecutor is required");
+        checkNotNull(s3Client, "s3Client is required");
+        checkNotNull(kmsClient, "kmsClient is required");
+
+        this.bucketName = bucketName;
+        this.key = key;
+        this.refreshInterval = refreshInterval;
+        this.executor = executor;
+        this.parseExecutor = parseExecutor;
+        this.s3Loader = null;
+        this.s3AsyncLoader = new S3AsyncFileLoader(bucketName, key, s3Client, kmsClient, executor);
+        this.configurationParser = configurationParser;
+        this.parseOptions = checkNotNull(parseOptions, "parseOptions is required");
+        this.snapshotFile = snapshotFile;
+
+        if (loadSnapshotFile()) {
+            loadConfigurationsAsync().whenComplete((ignored, e) -> {
+                logRefreshFailure(e);
+                scheduleAsyncRefresh();
+            });
+        } else {
+            try {
+                loadConfigurationsAsync().join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+            scheduleAsyncRefresh();
+        }
+    }
+
     @Nonnull
     @Override
     public Optional<Configuration> get(@Nonnull String key) {
-        return Optional.ofNullable(configurationsMap.get(key));
+        return Optional.ofNullable(snapshot.get(key));
+    }
+
+    @Nonnull
+    @Override
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nonnull
+    @Override
+    public SnapshotListenerRegistration addSnapshotListener(@Nonnull final Consumer<ConfigurationSnapshot> listener) {
+        return snapshotListeners.add(listener);
     }
 
     @Override
@@ -66,28 +153,97 @@ public class S3ConfigurationRepository implements ConfigurationRepository {
     }
 
     private void loadConfigurations() {
-        LOG.debug("Loading configurations from S3 bucket {} at key {}", s3Loader.getBucketName(), s3Loader.getKey());
-        final String configurationText = s3Loader.loadContent();
-        final List<Configuration<?>> configurations = configurationParser.parseConfigurations(configurationText);
-        final ImmutableMap.Builder<String, Configuration<?>> builder = ImmutableMap.builder();
-        for (final Configuration<?> configuration : configurations) {
-            builder.put(configuration.getAlias(), configuration);
+        LOG.debug("Loading configurations from S3 bucket {} at key {}", bucketName, key);
+        updateSnapshot(s3Loader.loadDocumentIfChanged());
+    }
+
+    private CompletableFuture<Void> loadConfigurationsAsync() {
+        LOG.debug("Loading configurations from S3 bucket {} at key {}", bucketName, key);
+        return s3AsyncLoader.loadDocumentIfChanged().thenAcceptAsync(this::updateSnapshot, parseExecutor);
+    }
+
+    private void updateSnapshot(final Optional<ConfigurationDocument> document) {
+        if (document.isEmpty()) {
+            // the snapshot is kept, so that values cached per snapshot stay valid
+            LOG.debug("Configurations in S3 bucket {} at key {} are unchanged", bucketName, key);
+            if (snapshotFile != null) {
+                snapshotFile.markCurrent();
+            }
+            return;
+        }
+        snapshot = configurationParser.parseSnapshot(document.get(), snapshot, parseOptions);
+        LOG.debug("Loaded {} configurations from S3 bucket {} at key {}", document.get().getFormat(), bucketName, key);
+        snapshotListeners.notifyListeners(snapshot);
+        if (snapshotFile != null) {
+            snapshotFile.write(document.get());
+        }
+    }
+
+    /**
+     * Serves the configurations of the snapshot file until they are loaded from S3.
+     *
+     * @return Whether the snapshot file was recent enough and could be parsed.
+     */
+    private boolean loadSnapshotFile() {
+        if (snapshotFile == null) {
+            return false;
+        }
+        final Optional<ConfigurationDocument> document = snapshotFile.readIfFresh();
+        if (document.isEmpty()) {
+            return false;
+        }
+        try {
+            snapshot = configurationParser.parseSnapshot(document.get(), snapshot, parseOptions);
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to parse configuration snapshot file of S3 bucket {} at key {}. Loading from S3 instead.",
+                    bucketName, key, e);
+            return false;
+        }
+        LOG.info("Loaded configurations of S3 bucket {} at key {} from snapshot file, refreshing in the background",
+                bucketName, key);
+        return true;
+    }
+
+    private void refreshConfigurations() {
+        try {
+            loadConfigurations();
+        } catch (RuntimeException e) {
+            logRefreshFailure(e);
+        }
+    }
+
+    private void logRefreshFailure(@Nullable final Throwable e) {
+        if (e != null) {
+            LOG.error("Failed to refresh configuration from S3 bucket {} at key {}. Keeping old state.",
+                    bucketName, key, e);
         }
-        configurationsMap = builder.build();
-        LOG.debug("Loaded configurations from S3 bucket {} at key {}", s3Loader.getBucketName(), s3Loader.getKey());
     }
 
     private void setupRefresh() {
+        if (refreshInterval.isZero()) {
+            return;
+        }
         executor.scheduleAtFixedRate(
-                () -> {
-                    try {
-                        loadConfigurations();
-                    } catch (RuntimeException e) {
-                        LOG.error("Failed to refresh configuration from S3 bucket {} at key {}. Keeping old state.",
-                                s3Loader.getBucketName(), s3Loader.getKey(), e);
-                    }
-                },
+                this::refreshConfigurations,
+                this.refreshInterval.toMillis(),
                 this.refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Schedules the next refresh once the previous one, or the initial load, has completed, so that loads never
+     * overlap and no thread waits for a pending one.
+     */
+    private void scheduleAsyncRefresh() {
+        if (refreshInterval.isZero()) {
+            return;
+        }
+        executor.schedule(
+                () -> loadConfigurationsAsync().whenComplete((ignored, e) -> {
+                    logRefreshFailure(e);
+                    scheduleAsyncRefresh();
+                }),
                 this.refreshInterval.toMillis(),
                 TimeUnit.MILLISECONDS
         );
@@ -1,15 +1,26 @@
 package org.zalando.baigan.repository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 
 import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Suppliers.memoize;
 
 /**
  * Builder class for an S3ConfigurationRepository.
@@ -22,13 +33,45 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class S3ConfigurationRepositoryBuilder {
 
+    /**
+     * The executor of all repositories loading asynchronously without an explicit executor. It only schedules
+     * refreshes and retries, so a single thread suffices.
+     */
+    private static final Supplier<ScheduledExecutorService> SHARED_ASYNC_EXECUTOR = memoize(
+            () -> new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                    .setNameFormat("baigan-s3-refresh-%d")
+                    .setDaemon(true)
+                    .build())
+    );
+
+    /**
+     * The executor parsing the configurations of all repositories loading asynchronously without an explicit
+     * executor. Its threads are only kept while configurations are parsed, so that a large configuration does not
+     * delay the others, while idle repositories do not hold a thread each.
+     */
+    private static final Supplier<ExecutorService> SHARED_PARSE_EXECUTOR = memoize(
+            () -> Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat("baigan-s3-parse-%d")
+                    .setDaemon(true)
+                    .build())
+    );
+
     private ScheduledExecutorService executor;
+    private Executor parseExecutor;
     private S3Client s3Client;
     private KmsClient kmsClient;
+    private boolean asyncLoading;
+    private S3AsyncClient s3AsyncClient;
+    private KmsAsyncClient kmsAsyncClient;
     private Duration refreshInterval = Duration.ofMinutes(1);
     private String bucketName;
     private String key;
     private ObjectMapper objectMapper;
+    private Path snapshotFile;
+    private Duration maxSnapshotAge = Duration.ofDays(1);
+    private Executor deserializationExecutor;
+    private long parallelDeserializationThreshold = ConfigurationParser.DEFAULT_PARALLEL_DESERIALIZATION_THRESHOLD;
+    private boolean lazyDeserialization;
     private final ConfigurationParser configurationParser;
 
     public S3ConfigurationRepositoryBuilder(final ConfigurationParser configurationParser) {
@@ -55,6 +98,42 @@ public class S3ConfigurationRepositoryBuilder {
         return this;
     }
 
+    /**
+     * @param asyncLoading Whether to load the configuration with the non-blocking {@link S3AsyncClient} and
+     *                     {@link KmsAsyncClient} instead of the blocking clients. If no executor is specified, all
+     *                     repositories loading asynchronously share a single thread to schedule refreshes, and
+     *                     parse their configurations on a shared pool of threads, see
+     *                     {@link #parseExecutor(Executor)}.
+     */
+    public S3ConfigurationRepositoryBuilder asyncLoading(final boolean asyncLoading) {
+        this.asyncLoading = asyncLoading;
+        return this;
+    }
+
+    /**
+     * @param s3AsyncClient The S3 client to be used to fetch the configuration file when loading asynchronously.
+     *                      Specifying it enables {@link #asyncLoading(boolean) asynchronous loading}. If the client
+     *                      is not specified explicitly, Baigan builds a default client using
+     *                      {@link S3AsyncClient#builder()}.
+     */
+    public S3ConfigurationRepositoryBuilder s3AsyncClient(final S3AsyncClient s3AsyncClient) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.asyncLoading = true;
+        return this;
+    }
+
+    /**
+     * @param kmsAsyncClient The KMS client to be used to decrypt the configuration file when loading asynchronously.
+     *                       Specifying it enables {@link #asyncLoading(boolean) asynchronous loading}. If the client
+     *                       is not specified explicitly, Baigan builds a default client using
+     *                       {@link KmsAsyncClient#builder()}.
+     */
+    public S3ConfigurationRepositoryBuilder kmsAsyncClient(final KmsAsyncClient kmsAsyncClient) {
+        this.kmsAsyncClient = kmsAsyncClient;
+        this.asyncLoading = true;
+        return this;
+    }
+
     /**
      * @param bucketName The name of the S3 bucket that holds the configuration file.
      */
@@ -92,6 +171,17 @@ public class S3ConfigurationRepositoryBuilder {
         return this;
     }
 
+    /**
+     * @param parseExecutor The executor to parse the configuration on when {@link #asyncLoading(boolean) loading
+     *                      asynchronously}. If this is not specified, the configuration is parsed on the
+     *                      {@link #executor(ScheduledExecutorService) executor} if one is specified, and otherwise on
+     *                      a pool of threads shared by all repositories, that creates threads as needed.
+     */
+    public S3ConfigurationRepositoryBuilder parseExecutor(final Executor parseExecutor) {
+        this.parseExecutor = parseExecutor;
+        return this;
+    }
+
     /**
      * @param objectMapper The {@link ObjectMapper} used to parse the configurations.
      */
@@ -108,7 +198,63 @@ public class S3ConfigurationRepositoryBuilder {
         return this;
     }
 
+    /**
+     * @param snapshotFile A local file to store the last loaded configuration in. If the file is recent enough on
+     *                     startup, the repository serves its configuration right away and loads the configuration
+     *                     from S3 in the background. The configuration is stored decrypted. If this is not
+     *                     specified, the configuration is always loaded from S3 on startup.
+     */
+    public S3ConfigurationRepositoryBuilder snapshotFile(final Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        return this;
+    }
+
+    /**
+     * @param maxSnapshotAge The maximum time since the content of the {@link #snapshotFile(Path) snapshot file} was
+     *                       last confirmed by S3 for it to be served on startup. Defaults to one day.
+     */
+    public S3ConfigurationRepositoryBuilder maxSnapshotAge(final Duration maxSnapshotAge) {
+        this.maxSnapshotAge = maxSnapshotAge;
+        return this;
+    }
+
+    /**
+     * @param deserializationExecutor The executor to deserialize the configurations of large files on in parallel,
+     *                                e.g. {@link ForkJoinPool#commonPool()}. By default, the configurations are
+     *                                deserialized on the thread loading the file only.
+     */
+    public S3ConfigurationRepositoryBuilder deserializationExecutor(final Executor deserializationExecutor) {
+        this.deserializationExecutor = deserializationExecutor;
+        return this;
+    }
+
+    /**
+     * @param parallelDeserializationThreshold The number of bytes of changed configurations in a file from which on
+     *                                         they are deserialized on the
+     *                                         {@link #deserializationExecutor(Executor) deserialization executor}.
+     *                                         Defaults to 1 MiB.
+     */
+    public S3ConfigurationRepositoryBuilder parallelDeserializationThreshold(final long parallelDeserializationThreshold) {
+        this.parallelDeserializationThreshold = parallelDeserializationThreshold;
+        return this;
+    }
+
+    /**
+     * @param lazyDeserialization Whether to deserialize each configuration on its first use only, instead of all
+     *                            configurations of the file whenever it is loaded. This makes loading large files
+     *                            cheap if only a few of their configurations are used, but configurations that
+     *                            cannot be deserialized are then only reported on first use. They keep their value
+     *                            from before the reload, or are treated as missing if they had none.
+     */
+    public S3ConfigurationRepositoryBuilder lazyDeserialization(final boolean lazyDeserialization) {
+        this.lazyDeserialization = lazyDeserialization;
+        return this;
+    }
+
     public S3ConfigurationRepository build() {
+        if (asyncLoading) {
+            return buildAsync();
+        }
         if (executor == null) {
             executor = new ScheduledThreadPoolExecutor(1);
         }
@@ -122,6 +268,39 @@ public class S3ConfigurationRepositoryBuilder {
             configurationParser.setObjectMapper(objectMapper);
         }
 
-        return new S3ConfigurationRepository(bucketName, key, refreshInterval, executor, s3Client, kmsClient, configurationParser);
+        return new S3ConfigurationRepository(bucketName, key, refreshInterval, executor, s3Client, kmsClient,
+                configurationParser, createParseOptions(), createSnapshotFile());
+    }
+
+    private S3ConfigurationRepository buildAsync() {
+        if (parseExecutor == null) {
+            parseExecutor = executor == null ? SHARED_PARSE_EXECUTOR.get() : executor;
+        }
+        if (executor == null) {
+            executor = SHARED_ASYNC_EXECUTOR.get();
+        }
+        if (s3AsyncClient == null) {
+            s3AsyncClient = S3AsyncClient.builder().build();
+        }
+        if (kmsAsyncClient == null) {
+            kmsAsyncClient = KmsAsyncClient.builder().build();
+        }
+        if (objectMapper != null) {
+            configurationParser.setObjectMapper(objectMapper);
+        }
+
+        return new S3ConfigurationRepository(bucketName, key, refreshInterval, executor, parseExecutor,
+                s3AsyncClient, kmsAsyncClient, configurationParser, createParseOptions(), createSnapshotFile());
+    }
+
+    private SnapshotParseOptions createParseOptions() {
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(lazyDeserialization);
+        return deserializationExecutor == null
+                ? options
+                : options.withParallelDeserialization(deserializationExecutor, parallelDeserializationThreshold);
+    }
+
+    private SnapshotFile createSnapshotFile() {
+        return snapshotFile == null ? null : new SnapshotFile(snapshotFile, maxSnapshotAge, Clock.systemUTC());
     }
 }
@@ -0,0 +1,412 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.base.Throwables;
+import com.google.common.hash.HashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.baigan.model.Condition;
+import org.zalando.baigan.model.Configuration;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the configurations of a document token by token, deserializing only those with a known alias.
+ * <p>
+ * The alias of each configuration is checked as soon as it is read: the remaining fields of configurations with an
+ * unknown alias are skipped without building any nodes, while the values of known ones are deserialized straight
+ * into their target type. Fields preceding the alias are buffered, as their target type is not known yet.
+ */
+final class SelectiveConfigurationReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SelectiveConfigurationReader.class);
+
+    private static final String ALIAS = "alias";
+    private static final String DESCRIPTION = "description";
+    private static final String CONDITIONS = "conditions";
+    private static final String DEFAULT_VALUE = "defaultValue";
+    private static final List<Object> KNOWN_FIELDS = List.of(ALIAS, DESCRIPTION, CONDITIONS, DEFAULT_VALUE);
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final ObjectMapper objectMapper;
+    private final ConfigurationValueReaders valueReaders;
+    private final boolean failOnUnknownFields;
+    private final Executor executor;
+    private final long parallelThreshold;
+
+    SelectiveConfigurationReader(final ObjectMapper objectMapper, final ConfigurationValueReaders valueReaders) {
+        this(objectMapper, valueReaders, null, 0);
+    }
+
+    /**
+     * @param executor          The executor to read the entries of a document on in parallel, or {@code null} to
+     *                          read them on the calling thread
+     * @param parallelThreshold The number of bytes of entries to read from which on they are read in parallel
+     */
+    SelectiveConfigurationReader(final ObjectMapper objectMapper, final ConfigurationValueReaders valueReaders,
+                                 @Nullable final Executor executor, final long parallelThreshold) {
+        this.objectMapper = objectMapper;
+        this.valueReaders = valueReaders;
+        this.failOnUnknownFields = objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.executor = executor;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * @param parser A parser positioned before the array of configurations
+     * @return The configurations with a known alias, in document order.
+     */
+    List<Configuration<?>> readConfigurations(final JsonParser parser) throws IOException {
+        startConfigurations(parser);
+        final List<Configuration<?>> configurations = new ArrayList<>();
+        int ignoredCount = 0;
+        while (nextConfiguration(parser)) {
+            final Configuration<?> configuration = readConfiguration(parser);
+            if (configuration != null) {
+                configurations.add(configuration);
+            } else {
+                ignoredCount++;
+            }
+        }
+        logIgnored(ignoredCount);
+        return configurations;
+    }
+
+    /**
+     * Reads the configurations, reusing those of entries that are unchanged since the previous read.
+     * <p>
+     * Each entry is skipped first to fingerprint its raw bytes. Only entries with an unknown fingerprint are then
+     * read by a parser of their own, so that an unchanged entry costs one pass of the tokenizer and no allocation
+     * beyond its fingerprint. If an executor is given and the entries to read are large enough, they are read in
+     * parallel; the result is the same as if they were read one after another.
+     * <p>
+     * When reading lazily, only the alias of each entry is read, and the remaining entries are deserialized on their
+     * first access instead, see {@link ConfigurationEntry}.
+     *
+     * @param parser       A parser of the content, positioned before the array of configurations
+     * @param content      The content, whose entries have to be self-contained in their encoding
+     * @param entryFactory The factory to create the parsers of single entries with
+     * @param previous     The fingerprints of the previous read, or {@code null} if there was none
+     * @param fingerprints Collects the fingerprints of this read
+     * @param lazy         Whether to defer the deserialization of the entries to their first access
+     * @param fallbacks    The snapshot whose entries lazy entries fall back to if they cannot be deserialized, or
+     *                     {@code null} if there is none
+     * @return The entries with a known alias, in document order.
+     */
+    List<ConfigurationEntry> readEntries(final JsonParser parser, final byte[] content, final JsonFactory entryFactory,
+                                         @Nullable final ConfigurationFingerprints previous,
+                                         final ConfigurationFingerprints.Builder fingerprints,
+                                         final boolean lazy,
+                                         @Nullable final ConfigurationSnapshot fallbacks) throws IOException {
+        startConfigurations(parser);
+        final List<Entry> entries = new ArrayList<>();
+        final List<Entry> pendingEntries = new ArrayList<>();
+        long pendingBytes = 0;
+        int reusedCount = 0;
+        while (nextConfiguration(parser)) {
+            final int start = (int) parser.currentTokenLocation().getByteOffset();
+            final String alias;
+            if (lazy) {
+                alias = skipConfiguration(parser);
+            } else {
+                alias = null;
+                parser.skipChildren();
+            }
+            final int length = (int) parser.currentLocation().getByteOffset() - start;
+            final Entry entry = new Entry(start, length, ConfigurationFingerprints.fingerprint(content, start, length));
+            entries.add(entry);
+
+            final Configuration<?> configuration = previous == null ? null : previous.getConfiguration(entry.fingerprint);
+            if (configuration != null) {
+                entry.configuration = ConfigurationEntry.of(configuration);
+                reusedCount++;
+            } else if (lazy) {
+                if (alias != null && valueReaders.get(alias) != null) {
+                    entry.configuration = ConfigurationEntry.lazy(alias, content, start, length,
+                            entry.fingerprint, this, entryFactory, fallbacks == null ? null : fallbacks.getEntry(alias));
+                }
+            } else if (previous == null || !previous.isIgnored(entry.fingerprint)) {
+                pendingEntries.add(entry);
+                pendingBytes += length;
+            }
+        }
+
+        if (executor != null && pendingEntries.size() > 1 && pendingBytes >= parallelThreshold) {
+            readEntriesInParallel(content, entryFactory, pendingEntries, pendingBytes);
+        } else {
+            for (final Entry entry : pendingEntries) {
+                entry.read(content, entryFactory);
+            }
+        }
+
+        final List<ConfigurationEntry> configurations = new ArrayList<>(entries.size());
+        for (final Entry entry : entries) {
+            if (entry.configuration != null) {
+                configurations.add(entry.configuration);
+                fingerprints.add(entry.fingerprint, entry.configuration);
+            } else {
+                fingerprints.ignore(entry.fingerprint);
+            }
+        }
+        logIgnored(entries.size() - configurations.size());
+        LOG.debug("Reused {} of {} configurations of the previous read.", reusedCount, configurations.size());
+        return configurations;
+    }
+
+    /**
+     * Reads a single entry of a document, as recorded by {@link #readEntries}.
+     *
+     * @return The configuration, or {@code null} if its alias is unknown.
+     */
+    @Nullable
+    Configuration<?> readEntry(final byte[] content, final JsonFactory entryFactory, final int start,
+                               final int length) throws IOException {
+        try (JsonParser entryParser = entryFactory.createParser(content, start, length)) {
+            entryParser.setCodec(objectMapper);
+            entryParser.nextToken();
+            return readConfiguration(entryParser);
+        }
+    }
+
+    /**
+     * Skips the configuration object the parser is positioned at, except for its alias.
+     *
+     * @return The alias of the configuration, or {@code null} if it has none.
+     */
+    @Nullable
+    private static String skipConfiguration(final JsonParser parser) throws IOException {
+        String alias = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            parser.nextToken();
+            if (ALIAS.equals(fieldName)) {
+                alias = parser.getValueAsString();
+            }
+            parser.skipChildren();
+        }
+        return alias;
+    }
+
+    /**
+     * Reads the entries in batches of consecutive entries of about the same size. The batches are claimed by tasks
+     * on the executor as well as by the calling thread, which therefore never waits for a task that has not started,
+     * even if the executor is busy or is the one the calling thread belongs to.
+     */
+    private void readEntriesInParallel(final byte[] content, final JsonFactory entryFactory,
+                                       final List<Entry> entries, final long totalBytes) throws IOException {
+        final int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        final long batchBytes = Math.max(1, totalBytes / ((long) parallelism * BATCHES_PER_THREAD));
+        final List<List<Entry>> batches = new ArrayList<>();
+        List<Entry> batch = new ArrayList<>();
+        long bytes = 0;
+        for (final Entry entry : entries) {
+            batch.add(entry);
+            bytes += entry.length;
+            if (bytes >= batchBytes) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                bytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        final AtomicInteger nextBatch = new AtomicInteger();
+        final CountDownLatch remainingBatches = new CountDownLatch(batches.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            int index;
+            while ((index = nextBatch.getAndIncrement()) < batches.size()) {
+                try {
+                    if (failure.get() == null) {
+                        for (final Entry entry : batches.get(index)) {
+                            entry.read(content, entryFactory);
+                        }
+                    }
+                } catch (final Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    remainingBatches.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < Math.min(parallelism, batches.size()); i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+        try {
+            remainingBatches.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading configurations");
+        }
+
+        final Throwable e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e != null) {
+            Throwables.throwIfUnchecked(e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void startConfigurations(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw MismatchedInputException.from(parser, List.class, "Expected an array of configurations");
+        }
+    }
+
+    /**
+     * Advances the parser to the start of the next configuration object.
+     *
+     * @return Whether there is another configuration.
+     */
+    private static boolean nextConfiguration(final JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.VALUE_NULL) {
+            // null entries are ignored
+        }
+        if (token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw MismatchedInputException.from(parser, Configuration.class, "Expected a configuration object");
+        }
+        return true;
+    }
+
+    private static void logIgnored(final int ignoredCount) {
+        if (ignoredCount > 0) {
+            LOG.info("Ignored {} aliases in configuration source that do not match any method of any @BaiganConfig interface.",
+                    ignoredCount);
+        }
+    }
+
+    /**
+     * @param parser A parser positioned at the start of a configuration object
+     * @return The configuration, or {@code null} if its alias is unknown.
+     */
+    private Configuration<?> readConfiguration(final JsonParser parser) throws IOException {
+        TokenBuffer precedingFields = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            parser.nextToken();
+            if (ALIAS.equals(fieldName)) {
+                final String alias = parser.getValueAsString();
+                final ConfigurationValueReaders.KeyReaders keyReaders = alias == null ? null : valueReaders.get(alias);
+                if (keyReaders == null) {
+                    LOG.debug("Alias [{}] in configuration source does not match any method of any @BaiganConfig interface, ignoring it.",
+                            alias);
+                    parser.skipChildren();
+                    skipRemainingFields(parser);
+                    return null;
+                }
+                return readTypedConfiguration(alias, keyReaders, precedingFields, parser);
+            }
+            if (precedingFields == null) {
+                precedingFields = new TokenBuffer(parser);
+                precedingFields.writeStartObject();
+            }
+            precedingFields.writeFieldName(fieldName);
+            precedingFields.copyCurrentStructure(parser);
+        }
+        LOG.debug("Configuration without alias in configuration source, ignoring it.");
+        return null;
+    }
+
+    private Configuration<?> readTypedConfiguration(final String alias,
+                                                    final ConfigurationValueReaders.KeyReaders keyReaders,
+                                                    final TokenBuffer precedingFields,
+                                                    final JsonParser parser) throws IOException {
+        final TypedFields fields = new TypedFields(keyReaders);
+        if (precedingFields != null) {
+            try (JsonParser bufferedParser = precedingFields.asParser(objectMapper)) {
+                bufferedParser.nextToken();
+                readFields(bufferedParser, fields);
+            }
+        }
+        readFields(parser, fields);
+        return new Configuration<>(alias, fields.description, fields.conditions, fields.defaultValue).compile();
+    }
+
+    private void readFields(final JsonParser parser, final TypedFields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case DESCRIPTION:
+                    fields.description = valueReaders.getDescriptionReader().readValue(parser);
+                    break;
+                case CONDITIONS:
+                    fields.conditions = fields.keyReaders.getConditionsReader().readValue(parser);
+                    break;
+                case DEFAULT_VALUE:
+                    fields.defaultValue = fields.keyReaders.getValueReader().readValue(parser);
+                    break;
+                default:
+                    if (failOnUnknownFields) {
+                        throw UnrecognizedPropertyException.from(parser, Configuration.class, fieldName, KNOWN_FIELDS);
+                    }
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static void skipRemainingFields(final JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    private final class Entry {
+
+        private final int start;
+        private final int length;
+        private final HashCode fingerprint;
+        private ConfigurationEntry configuration;
+
+        private Entry(final int start, final int length, final HashCode fingerprint) {
+            this.start = start;
+            this.length = length;
+            this.fingerprint = fingerprint;
+        }
+
+        private void read(final byte[] content, final JsonFactory entryFactory) throws IOException {
+            final Configuration<?> configuration = readEntry(content, entryFactory, start, length);
+            this.configuration = configuration == null ? null : ConfigurationEntry.of(configuration);
+        }
+    }
+
+    private static final class TypedFields {
+
+        private final ConfigurationValueReaders.KeyReaders keyReaders;
+        private String description;
+        private List<Condition<Object>> conditions;
+        private Object defaultValue;
+
+        private TypedFields(final ConfigurationValueReaders.KeyReaders keyReaders) {
+            this.keyReaders = keyReaders;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.zalando.baigan.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A local copy of the last configuration document a repository loaded successfully, used to start without waiting for
+ * the remote source.
+ * <p>
+ * The file is replaced atomically, so that a reader never sees a partially written copy. Its modification time is
+ * the time the document was last confirmed to be current, which bounds the age of a copy that is used on startup.
+ * As the content is stored decrypted, it is written through a temporary file, which is only readable by its owner
+ * on POSIX file systems.
+ */
+final class SnapshotFile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotFile.class);
+
+    private final Path path;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    SnapshotFile(final Path path, final Duration maxAge, final Clock clock) {
+        checkNotNull(path, "path is required");
+        checkArgument(!maxAge.isNegative(), "maxAge has to be >= 0");
+        this.path = path;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * @return The stored configuration document, or {@link Optional#empty()} if there is none or it is older than
+     * the maximum age.
+     */
+    Optional<ConfigurationDocument> readIfFresh() {
+        try {
+            if (!Files.exists(path)) {
+                return Optional.empty();
+            }
+            final Instant confirmedAt = Files.getLastModifiedTime(path).toInstant();
+            if (confirmedAt.plus(maxAge).isBefore(clock.instant())) {
+                LOG.info("Ignoring configuration snapshot file [{}] last confirmed at {}, as it is older than {}.",
+                        path, confirmedAt, maxAge);
+                return Optional.empty();
+            }
+            return Optional.of(ConfigurationDocument.of(Files.readAllBytes(path)));
+        } catch (final IOException e) {
+            LOG.warn("Failed to read configuration snapshot file [{}].", path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the stored configuration document. Its format is detected by the content when it is read again.
+     */
+    void write(final ConfigurationDocument document) {
+        Path tempFile = null;
+        try {
+            final Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            Files.write(tempFile, document.getContent());
+            try {
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.setLastModifiedTime(path, FileTime.from(clock.instant()));
+        } catch (final IOException e) {
+            LOG.warn("Failed to write configuration snapshot file [{}].", path, e);
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Records that the stored configuration text is still current.
+     */
+    void markCurrent() {
+        try {
+            if (Files.exists(path)) {
+                Files.setLastModifiedTime(path, FileTime.from(clock.instant()));
+            }
+        } catch (final IOException e) {
+            LOG.warn("Failed to update configuration snapshot file [{}].", path, e);
+        }
+    }
+
+    private static void deleteQuietly(final Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException e) {
+            LOG.debug("Failed to delete temporary file [{}].", file, e);
+        }
+    }
+}
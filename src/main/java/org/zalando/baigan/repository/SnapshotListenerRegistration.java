@@ -0,0 +1,16 @@
+package org.zalando.baigan.repository;
+
+/**
+ * A listener registered by {@link ConfigurationRepository#addSnapshotListener(java.util.function.Consumer)}, which
+ * is removed from the repository when the registration is closed.
+ */
+@FunctionalInterface
+public interface SnapshotListenerRegistration extends AutoCloseable {
+
+    /**
+     * Removes the listener, so that it is no longer notified of later snapshots. Closing a registration more than
+     * once has no effect.
+     */
+    @Override
+    void close();
+}
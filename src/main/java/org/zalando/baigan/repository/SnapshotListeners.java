@@ -0,0 +1,55 @@
+package org.zalando.baigan.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The listeners registered with a repository by {@link ConfigurationRepository#addSnapshotListener(Consumer)}.
+ * A failing listener is logged and does not keep the others from being notified.
+ */
+final class SnapshotListeners {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotListeners.class);
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    SnapshotListenerRegistration add(final Consumer<ConfigurationSnapshot> listener) {
+        final Registration registration = new Registration(checkNotNull(listener, "listener is required"));
+        registrations.add(registration);
+        return registration;
+    }
+
+    void notifyListeners(final ConfigurationSnapshot snapshot) {
+        for (final Registration registration : registrations) {
+            try {
+                registration.listener.accept(snapshot);
+            } catch (final RuntimeException e) {
+                LOG.warn("Snapshot listener {} failed.", registration.listener, e);
+            }
+        }
+    }
+
+    /**
+     * Removes exactly the registration it was returned for, by identity, even if the same listener was added more
+     * than once.
+     */
+    private final class Registration implements SnapshotListenerRegistration {
+
+        private final Consumer<ConfigurationSnapshot> listener;
+
+        private Registration(final Consumer<ConfigurationSnapshot> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void close() {
+            registrations.remove(this);
+        }
+    }
+}
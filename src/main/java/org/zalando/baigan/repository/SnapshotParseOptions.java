@@ -0,0 +1,92 @@
+package org.zalando.baigan.repository;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.StringJoiner;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * How {@link ConfigurationParser#parseSnapshot(ConfigurationDocument, ConfigurationSnapshot, SnapshotParseOptions)}
+ * deserializes the configurations of a document. The parser is shared by all repositories, so each repository keeps
+ * the options it was built with and passes them on every parse.
+ */
+public final class SnapshotParseOptions {
+
+    private static final SnapshotParseOptions DEFAULTS =
+            new SnapshotParseOptions(null, ConfigurationParser.DEFAULT_PARALLEL_DESERIALIZATION_THRESHOLD, false);
+
+    private final Executor deserializationExecutor;
+    private final long parallelDeserializationThreshold;
+    private final boolean lazyDeserialization;
+
+    private SnapshotParseOptions(@Nullable final Executor deserializationExecutor,
+                                 final long parallelDeserializationThreshold, final boolean lazyDeserialization) {
+        this.deserializationExecutor = deserializationExecutor;
+        this.parallelDeserializationThreshold = parallelDeserializationThreshold;
+        this.lazyDeserialization = lazyDeserialization;
+    }
+
+    /**
+     * The options to deserialize all configurations on the calling thread, when the document is parsed.
+     */
+    @Nonnull
+    public static SnapshotParseOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Deserializes the configurations of large documents in parallel. The result is the same as with sequential
+     * deserialization, in particular the configurations keep the order of the document.
+     *
+     * @param executor  The executor to deserialize the configurations on, in addition to the calling thread
+     * @param threshold The number of bytes of configurations to deserialize from which on they are deserialized in
+     *                  parallel
+     */
+    @Nonnull
+    public SnapshotParseOptions withParallelDeserialization(@Nonnull final Executor executor, final long threshold) {
+        checkNotNull(executor, "executor is required");
+        checkArgument(threshold >= 0, "threshold has to be >= 0");
+        return new SnapshotParseOptions(executor, threshold, lazyDeserialization);
+    }
+
+    /**
+     * Keeps the configurations of known keys in the raw form of their entry in the document, deserializing each of
+     * them on its first lookup in the snapshot. Deserialization errors are then logged on first lookup instead of
+     * failing the parse, and the configuration keeps its value in the previous snapshot, or is treated as missing if
+     * there is none.
+     */
+    @Nonnull
+    public SnapshotParseOptions withLazyDeserialization(final boolean lazyDeserialization) {
+        return new SnapshotParseOptions(deserializationExecutor, parallelDeserializationThreshold,
+                lazyDeserialization);
+    }
+
+    /**
+     * @return The executor to deserialize the configurations on in parallel, or {@code null} to deserialize them on
+     * the calling thread only.
+     */
+    @Nullable
+    public Executor getDeserializationExecutor() {
+        return deserializationExecutor;
+    }
+
+    public long getParallelDeserializationThreshold() {
+        return parallelDeserializationThreshold;
+    }
+
+    public boolean isLazyDeserialization() {
+        return lazyDeserialization;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SnapshotParseOptions.class.getSimpleName() + "[", "]")
+                .add("deserializationExecutor=" + deserializationExecutor)
+                .add("parallelDeserializationThreshold=" + parallelDeserializationThreshold)
+                .add("lazyDeserialization=" + lazyDeserialization)
+                .toString();
+    }
+}
@@ -0,0 +1,157 @@
+package org.zalando.baigan.repository.aws;
+
+import dev.failsafe.Failsafe;
+import dev.failsafe.RetryPolicy;
+import org.zalando.baigan.repository.ConfigurationDocument;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DependencyTimeoutException;
+import software.amazon.awssdk.services.kms.model.KmsInternalException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * The non-blocking counterpart of {@link S3FileLoader}, built on {@link S3AsyncClient} and {@link KmsAsyncClient}.
+ * <p>
+ * No thread is blocked while the object is downloaded or decrypted: retries of the decryption are scheduled on
+ * the given executor instead of sleeping.
+ */
+public class S3AsyncFileLoader {
+
+    private final RetryPolicy<ByteBuffer> retryPolicy = RetryPolicy.<ByteBuffer>builder()
+            .handleIf(S3AsyncFileLoader::isRetryable)
+            .withBackoff(1, S3FileLoader.RETRY_SECONDS_WAIT, SECONDS)
+            .withMaxRetries(S3FileLoader.MAX_RETRIES)
+            .build();
+
+    private final S3AsyncClient s3Client;
+    private final KmsAsyncClient kmsClient;
+    private final ScheduledExecutorService scheduler;
+    private final String bucketName;
+    private final String key;
+
+    private volatile String lastETag;
+    private volatile String lastVersionId;
+
+    public S3AsyncFileLoader(@Nonnull String bucketName, @Nonnull String key, @Nonnull S3AsyncClient s3Client,
+                             @Nonnull KmsAsyncClient kmsClient, @Nonnull ScheduledExecutorService scheduler) {
+        this.s3Client = s3Client;
+        this.kmsClient = kmsClient;
+        this.scheduler = scheduler;
+        this.bucketName = bucketName;
+        this.key = key;
+    }
+
+    /**
+     * Loads the content only if the object has changed since it was last loaded by this loader, see
+     * {@link S3FileLoader#loadContentIfChanged()}.
+     *
+     * @return A future of the content, or of {@link Optional#empty()} if the object is unchanged.
+     */
+    public CompletableFuture<Optional<String>> loadContentIfChanged() {
+        return loadDocumentIfChanged().thenApply(document -> document.map(
+                changedDocument -> new String(changedDocument.getContent(), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Loads the object as a document only if it has changed since it was last loaded by this loader, see
+     * {@link S3FileLoader#loadDocumentIfChanged()}.
+     *
+     * @return A future of the document, or of {@link Optional#empty()} if the object is unchanged.
+     */
+    public CompletableFuture<Optional<ConfigurationDocument>> loadDocumentIfChanged() {
+        final GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .ifNoneMatch(lastETag)
+                .build();
+        return s3Client.getObject(request, AsyncResponseTransformer.toBytes())
+                .thenApply(Optional::of)
+                .exceptionally(e -> {
+                    final Throwable cause = unwrap(e);
+                    if (cause instanceof S3Exception
+                            && ((S3Exception) cause).statusCode() == S3FileLoader.HTTP_NOT_MODIFIED) {
+                        return Optional.empty();
+                    }
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                })
+                .thenCompose(this::loadContentIfNewVersion);
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    private CompletableFuture<Optional<ConfigurationDocument>> loadContentIfNewVersion(
+            final Optional<ResponseBytes<GetObjectResponse>> object) {
+        if (object.isEmpty() || isLastVersion(object.get().response())) {
+            return completedFuture(Optional.empty());
+        }
+        return loadContent(object.get());
+    }
+
+    private CompletableFuture<Optional<ConfigurationDocument>> loadContent(
+            final ResponseBytes<GetObjectResponse> object) {
+        return decryptIfNecessary(object.asByteArrayUnsafe())
+                .thenApply(content -> {
+                    lastETag = object.response().eTag();
+                    lastVersionId = object.response().versionId();
+                    return Optional.of(ConfigurationDocument.of(content, object.response().contentType()));
+                });
+    }
+
+    private boolean isLastVersion(final GetObjectResponse response) {
+        return response.eTag() != null && response.eTag().equals(lastETag)
+                && Objects.equals(response.versionId(), lastVersionId);
+    }
+
+    private CompletableFuture<byte[]> decryptIfNecessary(final byte[] candidate) {
+        final Optional<byte[]> encryptedValue = S3FileLoader.getEncryptedValue(candidate);
+        if (encryptedValue.isEmpty()) {
+            return completedFuture(candidate);
+        }
+        final DecryptRequest request = DecryptRequest.builder()
+                .ciphertextBlob(SdkBytes.fromByteArray(encryptedValue.get()))
+                .build();
+        return Failsafe.with(retryPolicy)
+                .with(scheduler)
+                .getStageAsync(() -> kmsClient.decrypt(request)
+                        .thenApply(response -> response.plaintext().asByteBuffer()))
+                .thenApply(S3FileLoader::toByteArray);
+    }
+
+    private static boolean isRetryable(final Throwable e) {
+        final Throwable cause = unwrap(e);
+        return cause instanceof KmsInternalException || cause instanceof DependencyTimeoutException;
+    }
+
+    private static Throwable unwrap(final Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
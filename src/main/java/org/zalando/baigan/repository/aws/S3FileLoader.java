@@ -3,6 +3,8 @@ package org.zalando.baigan.repository.aws;
 import com.google.common.io.BaseEncoding;
 import dev.failsafe.Failsafe;
 import dev.failsafe.RetryPolicy;
+import org.zalando.baigan.repository.ConfigurationDocument;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.kms.KmsClient;
 import software.amazon.awssdk.services.kms.model.DecryptRequest;
@@ -10,24 +12,29 @@ import software.amazon.awssdk.services.kms.model.DependencyTimeoutException;
 import software.amazon.awssdk.services.kms.model.KmsInternalException;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import javax.annotation.Nonnull;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 import java.util.Optional;
 
 import static java.time.temporal.ChronoUnit.SECONDS;
 
 /* Provides transparent content decryption of encrypted configuration content using AWS KMS. All configuration values
  * starting with {@value #KMS_START_TAG} are decrypted automatically. The content must be Base64 encoded and
- * the decrypted content is interpreted as a UTF-8 encoded string. */
+ * the decrypted content is parsed like an unencrypted one, i.e. it may be in any supported configuration format. */
 
 public class S3FileLoader {
 
     // standard prefix
     private static final String KMS_START_TAG = "aws:kms:";
-    private static final int MAX_RETRIES = 5;
-    private static final int RETRY_SECONDS_WAIT = 10;
+    private static final byte[] KMS_START_TAG_BYTES = KMS_START_TAG.getBytes(StandardCharsets.US_ASCII);
+    static final int MAX_RETRIES = 5;
+    static final int RETRY_SECONDS_WAIT = 10;
+    static final int HTTP_NOT_MODIFIED = 304;
 
     private final RetryPolicy<ByteBuffer> retryPolicy = RetryPolicy.<ByteBuffer>builder()
             .handle(KmsInternalException.class)
@@ -41,6 +48,9 @@ public class S3FileLoader {
     private final String bucketName;
     private final String key;
 
+    private volatile String lastETag;
+    private volatile String lastVersionId;
+
     public S3FileLoader(@Nonnull String bucketName, @Nonnull String key, @Nonnull S3Client s3Client, @Nonnull KmsClient kmsClient) {
         this.s3Client = s3Client;
         this.kmsClient = kmsClient;
@@ -49,12 +59,62 @@ public class S3FileLoader {
     }
 
     public String loadContent() {
+        return new String(loadDocument().getContent(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the object as a document, in the format denoted by its content type or detected by its content.
+     */
+    public ConfigurationDocument loadDocument() {
         final GetObjectRequest request = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
                 .build();
-        final String configurationText = s3Client.getObjectAsBytes(request).asUtf8String();
-        return decryptIfNecessary(configurationText);
+        final ResponseBytes<GetObjectResponse> object = s3Client.getObjectAsBytes(request);
+        final ConfigurationDocument document = toDocument(object);
+        rememberVersion(object.response());
+        return document;
+    }
+
+    /**
+     * Loads the content only if the object has changed since it was last loaded by this loader. The request is
+     * conditional on the ETag of the last loaded object, so that an unchanged object is neither downloaded nor
+     * decrypted.
+     *
+     * @return The content, or {@link Optional#empty()} if the object is unchanged.
+     */
+    public Optional<String> loadContentIfChanged() {
+        return loadDocumentIfChanged().map(document -> new String(document.getContent(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Loads the object as a document only if it has changed since it was last loaded by this loader, see
+     * {@link #loadContentIfChanged()} and {@link #loadDocument()}.
+     *
+     * @return The document, or {@link Optional#empty()} if the object is unchanged.
+     */
+    public Optional<ConfigurationDocument> loadDocumentIfChanged() {
+        final String eTag = lastETag;
+        final GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .ifNoneMatch(eTag)
+                .build();
+        final ResponseBytes<GetObjectResponse> object;
+        try {
+            object = s3Client.getObjectAsBytes(request);
+        } catch (final S3Exception e) {
+            if (e.statusCode() == HTTP_NOT_MODIFIED) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+        if (isLastVersion(object.response())) {
+            return Optional.empty();
+        }
+        final ConfigurationDocument document = toDocument(object);
+        rememberVersion(object.response());
+        return Optional.of(document);
     }
 
     public String getBucketName() {
@@ -65,11 +125,25 @@ public class S3FileLoader {
         return key;
     }
 
-    private String decryptIfNecessary(final String candidate) {
+    private boolean isLastVersion(final GetObjectResponse response) {
+        return response.eTag() != null && response.eTag().equals(lastETag)
+                && Objects.equals(response.versionId(), lastVersionId);
+    }
+
+    private void rememberVersion(final GetObjectResponse response) {
+        lastETag = response.eTag();
+        lastVersionId = response.versionId();
+    }
+
+    private ConfigurationDocument toDocument(final ResponseBytes<GetObjectResponse> object) {
+        return ConfigurationDocument.of(decryptIfNecessary(object.asByteArrayUnsafe()), object.response().contentType());
+    }
+
+    private byte[] decryptIfNecessary(final byte[] candidate) {
         final Optional<byte[]> encryptedValue = getEncryptedValue(candidate);
         if (encryptedValue.isPresent()) {
             ByteBuffer decryptedValue = decryptValue(encryptedValue.get());
-            return new String(toByteArray(decryptedValue), StandardCharsets.UTF_8);
+            return toByteArray(decryptedValue);
         }
         return candidate;
     }
@@ -81,12 +155,13 @@ public class S3FileLoader {
         return Failsafe.with(retryPolicy).get(() -> kmsClient.decrypt(request).plaintext().asByteBuffer());
     }
 
-    private static Optional<byte[]> getEncryptedValue(final String value) {
-        if (!value.startsWith(KMS_START_TAG)) {
+    static Optional<byte[]> getEncryptedValue(final byte[] value) {
+        if (!startsWith(value, KMS_START_TAG_BYTES)) {
             return Optional.empty();
         }
 
-        final String encoded = value.substring(KMS_START_TAG.length());
+        final String encoded = new String(value, KMS_START_TAG_BYTES.length, value.length - KMS_START_TAG_BYTES.length,
+                StandardCharsets.US_ASCII);
         final byte[] decoded;
 
         try {
@@ -98,7 +173,19 @@ public class S3FileLoader {
         return Optional.of(decoded);
     }
 
-    private static byte[] toByteArray(final ByteBuffer buf) {
+    private static boolean startsWith(final byte[] value, final byte[] prefix) {
+        if (value.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (value[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] toByteArray(final ByteBuffer buf) {
         final byte[] bytes = new byte[buf.remaining()];
         buf.get(bytes, buf.position(), buf.remaining());
         return bytes;
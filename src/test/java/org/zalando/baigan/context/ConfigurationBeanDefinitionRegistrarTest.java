@@ -26,6 +26,8 @@ import org.zalando.baigan.annotation.ConfigurationServiceScan;
 import org.zalando.baigan.context.packagec.Marker;
 import org.zalando.baigan.proxy.BaiganConfigClasses;
 import org.zalando.baigan.proxy.ConfigurationBeanDefinitionRegistrar;
+import org.zalando.baigan.proxy.ConfigurationServiceBeanFactory;
+import org.zalando.baigan.proxy.ProxyEngine;
 
 import java.util.List;
 import java.util.Map;
@@ -108,8 +110,41 @@ public class ConfigurationBeanDefinitionRegistrarTest {
                 )
             )
         );
+        assertThat(
+            classesDefinition.getPropertyValues().get("keyIds"),
+            equalTo(
+                Map.of(
+                    "liquid.crystal.mass", 0,
+                    "super.sonic.speed", 1,
+                    "ultra.violet.wavelength", 2
+                )
+            )
+        );
     }
 
+    @Test
+    public void testRegistrationOfProxyEngine() {
+        when(metaData.getAnnotationAttributes(ConfigurationServiceScan.class.getName())).thenReturn(
+            ImmutableMap.of(
+                "value", new String[]{"org.zalando.baigan.context.packagea"},
+                "basePackages", new String[]{},
+                "basePackageClasses", new Class[]{},
+                "proxyEngine", ProxyEngine.GENERATED
+            )
+        );
+
+        final ArgumentCaptor<AbstractBeanDefinition> beanDefinition = ArgumentCaptor.forClass(
+            AbstractBeanDefinition.class
+        );
+        registrar.registerBeanDefinitions(metaData, registry);
+
+        verify(registry, atLeastOnce()).registerBeanDefinition(anyString(), beanDefinition.capture());
+
+        AbstractBeanDefinition factoryDefinition = beanDefinition.getAllValues().stream()
+            .filter(def -> def.getBeanClass().equals(ConfigurationServiceBeanFactory.class))
+            .findFirst().orElseThrow(AssertionError::new);
+        assertThat(factoryDefinition.getPropertyValues().get("proxyEngine"), equalTo(ProxyEngine.GENERATED));
+    }
 
     @Test
     public void whenNothingAnnotatedWithConfigurationServiceScan_shouldThrowException() {
@@ -121,7 +156,39 @@ public class ConfigurationBeanDefinitionRegistrarTest {
     }
 
     @Test
-    public void whenConfigurationContainsPrimitiveTypes_shouldThrowException() {
+    public void whenConfigurationContainsSupportedPrimitiveTypes_shouldRegisterTheirWrapperTypes() {
+        when(metaData.getAnnotationAttributes(ConfigurationServiceScan.class.getName())).thenReturn(
+                ImmutableMap.of(
+                        "value", new String[]{"org.zalando.baigan.context.packagee"},
+                        "basePackages", new String[]{},
+                        "basePackageClasses", new Class[]{}
+                )
+        );
+
+        final ArgumentCaptor<AbstractBeanDefinition> beanDefinition = ArgumentCaptor.forClass(
+            AbstractBeanDefinition.class
+        );
+        registrar.registerBeanDefinitions(metaData, registry);
+
+        verify(registry, atLeastOnce()).registerBeanDefinition(anyString(), beanDefinition.capture());
+        AbstractBeanDefinition classesDefinition = beanDefinition.getAllValues().stream()
+            .filter(def -> def.getBeanClass().equals(BaiganConfigClasses.class))
+            .findFirst().orElseThrow(AssertionError::new);
+        assertThat(
+            classesDefinition.getPropertyValues().get("configTypesByKey"),
+            equalTo(
+                Map.of(
+                    "feature.limits.enabled", Boolean.class,
+                    "feature.limits.max.items", Integer.class,
+                    "feature.limits.max.bytes", Long.class,
+                    "feature.limits.sample.rate", Double.class
+                )
+            )
+        );
+    }
+
+    @Test
+    public void whenConfigurationContainsUnsupportedPrimitiveTypes_shouldThrowException() {
         when(metaData.getAnnotationAttributes(ConfigurationServiceScan.class.getName())).thenReturn(
                 ImmutableMap.of(
                         "value", new String[]{"org.zalando.baigan.context.packaged"},
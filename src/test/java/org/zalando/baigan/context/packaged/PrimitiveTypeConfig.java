@@ -4,5 +4,5 @@ import org.zalando.baigan.annotation.BaiganConfig;
 
 @BaiganConfig
 public interface PrimitiveTypeConfig {
-    boolean enabled();
-}
\ No newline at end of file
+    float ratio();
+}
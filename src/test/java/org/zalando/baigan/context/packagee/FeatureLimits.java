@@ -0,0 +1,14 @@
+package org.zalando.baigan.context.packagee;
+
+import org.zalando.baigan.annotation.BaiganConfig;
+
+@BaiganConfig
+interface FeatureLimits {
+    boolean enabled();
+
+    int maxItems();
+
+    long maxBytes();
+
+    double sampleRate();
+}
@@ -0,0 +1,11 @@
+package org.zalando.baigan.fixture;
+
+import org.zalando.baigan.annotation.BaiganConfig;
+import org.zalando.baigan.context.ContextProvider;
+
+@BaiganConfig
+public interface HandleConfiguration {
+    String someValue();
+
+    String countryValue(ContextProvider contextProvider);
+}
@@ -0,0 +1,100 @@
+package org.zalando.baigan.model;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestEvaluationPlan {
+
+    private static final String COUNTRY = "country";
+    private static final String SHOP = "shop";
+
+    @Test
+    public void testIndexedRunKeepsFirstMatch() {
+        final Configuration<String> configuration = new Configuration<>("key", "description", ImmutableSet.of(
+                new Condition<>(COUNTRY, new Equals("at"), "first"),
+                new Condition<>(COUNTRY, new In(ImmutableSet.of("DE", "CH")), "second"),
+                new Condition<>(COUNTRY, new Equals("de"), "third"),
+                new Condition<>(COUNTRY, new In(ImmutableSet.of("AT", "FR")), "fourth"),
+                new Condition<>(COUNTRY, new Equals("fr"), "fifth")
+        ), "default");
+        final EvaluationPlan<String> plan = EvaluationPlan.compile(configuration);
+
+        assertThat(plan.evaluate(Map.of(COUNTRY, "AT")), equalTo("first"));
+        assertThat(plan.evaluate(Map.of(COUNTRY, "DE")), equalTo("second"));
+        assertThat(plan.evaluate(Map.of(COUNTRY, "dE")), equalTo("third"));
+        assertThat(plan.evaluate(Map.of(COUNTRY, "FR")), equalTo("fourth"));
+        assertThat(plan.evaluate(Map.of(COUNTRY, "Fr")), equalTo("fifth"));
+        assertThat(plan.evaluate(Map.of(COUNTRY, "IT")), equalTo("default"));
+        assertThat(plan.evaluate(Map.of()), equalTo("default"));
+    }
+
+    @Test
+    public void testIndexedRunIsEquivalentToSequentialEvaluation() {
+        final ImmutableSet.Builder<Condition<Integer>> conditions = ImmutableSet.builder();
+        for (int i = 0; i < 50; i++) {
+            conditions.add(new Condition<>(SHOP, i % 3 == 0 ? new In(ImmutableSet.of("shop" + i, "SHOP" + (i + 1))) : new Equals("Shop" + i), i));
+        }
+        final Configuration<Integer> configuration = new Configuration<>("key", "description", conditions.build(), -1);
+        final EvaluationPlan<Integer> plan = EvaluationPlan.compile(configuration);
+
+        for (final String value : new String[]{"shop0", "SHOP1", "shop1", "SHOP4", "sHoP5", "shop49", "shop50", "SHOP50", "other"}) {
+            assertThat(value, plan.evaluate(Map.of(SHOP, value)), equalTo(evaluateSequentially(configuration, value)));
+        }
+    }
+
+    @Test
+    public void testRunsAreSplitByParamAndOtherConditionTypes() {
+        final Configuration<String> configuration = new Configuration<>("key", "description", ImmutableSet.of(
+                new Condition<>(COUNTRY, new Equals("de"), "country de"),
+                new Condition<>(SHOP, new Equals("1"), "shop 1"),
+                new Condition<>(COUNTRY, new EndsWith(ImmutableSet.of("h")), "country ends with h"),
+                new Condition<>(COUNTRY, new Equals("ch"), "country ch")
+        ), "default");
+        final EvaluationPlan<String> plan = EvaluationPlan.compile(configuration);
+
+        assertThat(plan.evaluate(ImmutableMap.of(COUNTRY, "DE", SHOP, "1")), equalTo("country de"));
+        assertThat(plan.evaluate(ImmutableMap.of(COUNTRY, "AT", SHOP, "1")), equalTo("shop 1"));
+        assertThat(plan.evaluate(ImmutableMap.of(COUNTRY, "CH", SHOP, "2")), equalTo("country ends with h"));
+    }
+
+    @Test
+    public void testMissingParamDoesNotMatch() {
+        final ImmutableSet.Builder<Condition<String>> conditions = ImmutableSet.builder();
+        for (int i = 0; i < 10; i++) {
+            conditions.add(new Condition<>(COUNTRY, new Equals("c" + i), "value" + i));
+        }
+        final EvaluationPlan<String> plan = EvaluationPlan.compile(
+                new Configuration<>("key", "description", conditions.build(), null));
+
+        assertThat(plan.evaluate(Map.of(SHOP, "c1")), nullValue());
+        assertThat(plan.evaluate(Map.of(COUNTRY, "C1")), equalTo("value1"));
+    }
+
+    @Test
+    public void testFoldCaseMatchesEqualsIgnoreCase() {
+        final String[] values = {"straße", "STRASSE", "ǅ", "ǆ", "Ǆ", "İ", "i", "I", "ı", "Σ", "σ", "ς", "K", "k", "K"};
+        for (final String first : values) {
+            for (final String second : values) {
+                assertThat(first + " / " + second,
+                        EvaluationPlan.foldCase(first).equals(EvaluationPlan.foldCase(second)),
+                        equalTo(first.equalsIgnoreCase(second)));
+            }
+        }
+    }
+
+    private static <T> T evaluateSequentially(final Configuration<T> configuration, final String value) {
+        for (final Condition<T> condition : configuration.getConditions()) {
+            if (condition.getConditionType().eval(value)) {
+                return condition.getValue();
+            }
+        }
+        return configuration.getDefaultValue();
+    }
+}
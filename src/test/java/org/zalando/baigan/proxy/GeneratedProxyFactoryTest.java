@@ -0,0 +1,196 @@
+package org.zalando.baigan.proxy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.proxy.handler.ConditionsProcessor;
+import org.zalando.baigan.proxy.handler.ContextAwareConfigurationMethodInvocationHandler;
+import org.zalando.baigan.repository.ConfigurationRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GeneratedProxyFactoryTest {
+
+    private final ConfigurationRepository repository = mock(ConfigurationRepository.class);
+    private final ConditionsProcessor conditionsProcessor = mock(ConditionsProcessor.class);
+    private final BeanFactory beanFactory = mock(BeanFactory.class);
+    private final ContextAwareConfigurationMethodInvocationHandler handler = new ContextAwareConfigurationMethodInvocationHandler();
+
+    @BeforeEach
+    public void setup() {
+        when(beanFactory.getBean(ConfigurationRepository.class)).thenReturn(repository);
+        when(beanFactory.getBean(ConditionsProcessor.class)).thenReturn(conditionsProcessor);
+        handler.setBeanFactory(beanFactory);
+    }
+
+    @Test
+    public void whenMethodHasNoArguments_shouldResolveConfigurationWithEmptyContext() {
+        givenConfiguration("generated.config.plain.value", Map.of(), "plain");
+
+        final GeneratedConfig config = newInstance(GeneratedConfig.class);
+
+        assertThat(config.plainValue(), equalTo("plain"));
+    }
+
+    @Test
+    public void whenMethodHasContextProviderArgument_shouldResolveConfigurationWithItsContext() {
+        givenConfiguration("generated.config.contextual.value", Map.of("country", "DE"), 42);
+
+        final GeneratedConfig config = newInstance(GeneratedConfig.class);
+
+        assertThat(config.contextualValue(new SingleContextProvider("country", "DE")), equalTo(42));
+    }
+
+    @Test
+    public void whenMethodHasWideAndUnrelatedArguments_shouldPassOnlyContextProviders() {
+        givenConfiguration("generated.config.mixed.value", Map.of("country", "DE", "shop", "1"), true);
+
+        final GeneratedConfig config = newInstance(GeneratedConfig.class);
+
+        assertThat(config.mixedValue(1L, new SingleContextProvider("country", "DE"), 2.0, new SingleContextProvider("shop", "1")),
+                equalTo(true));
+    }
+
+    @Test
+    public void whenMethodHasMoreThanTwoContextArguments_shouldPassAllContextProviders() {
+        givenConfiguration("generated.config.many.contexts",
+                Map.of("country", "DE", "shop", "1", "channel", "web"), "many");
+
+        final GeneratedConfig config = newInstance(GeneratedConfig.class);
+
+        assertThat(config.manyContexts(new SingleContextProvider("country", "DE"), "not a provider",
+                new SingleContextProvider("shop", "1"), new SingleContextProvider("channel", "web")), equalTo("many"));
+    }
+
+    @Test
+    public void whenConfigurationIsMissing_shouldReturnNull() {
+        when(repository.get("generated.config.plain.value")).thenReturn(Optional.empty());
+
+        final GeneratedConfig config = newInstance(GeneratedConfig.class);
+
+        assertThat(config.plainValue(), nullValue());
+    }
+
+    @Test
+    public void whenMethodIsInherited_shouldUseKeyOfImplementedInterface() {
+        givenConfiguration("inheriting.generated.config.plain.value", Map.of(), "inherited");
+
+        final InheritingGeneratedConfig config = newInstance(InheritingGeneratedConfig.class);
+
+        assertThat(config.plainValue(), equalTo("inherited"));
+    }
+
+    @Test
+    public void shouldDescribeImplementedInterface() {
+        final GeneratedConfig config = newInstance(GeneratedConfig.class);
+
+        assertThat(config.toString(), containsString(GeneratedConfig.class.getName()));
+    }
+
+    @Test
+    public void whenMethodReturnsPrimitive_shouldReturnUnboxedValue() {
+        givenConfiguration("primitive.config.enabled", Map.of("country", "DE"), true);
+        givenConfiguration("primitive.config.limit", Map.of(), 42);
+        givenConfiguration("primitive.config.size", Map.of(), 1L << 40);
+        givenConfiguration("primitive.config.rate", Map.of(), 0.25);
+
+        final PrimitiveConfig config = newInstance(PrimitiveConfig.class);
+
+        assertThat(config.enabled(new SingleContextProvider("country", "DE")), equalTo(true));
+        assertThat(config.limit(), equalTo(42));
+        assertThat(config.size(), equalTo(1L << 40));
+        assertThat(config.rate(), equalTo(0.25));
+    }
+
+    @Test
+    public void whenPrimitiveConfigurationIsMissingOrHasWrongType_shouldReturnFalseOrZero() {
+        when(repository.get("primitive.config.enabled")).thenReturn(Optional.empty());
+        givenConfiguration("primitive.config.limit", Map.of(), "not a number");
+        when(repository.get("primitive.config.size")).thenReturn(Optional.empty());
+        when(repository.get("primitive.config.rate")).thenReturn(Optional.empty());
+
+        final PrimitiveConfig config = newInstance(PrimitiveConfig.class);
+
+        assertThat(config.enabled(new SingleContextProvider("country", "DE")), equalTo(false));
+        assertThat(config.limit(), equalTo(0));
+        assertThat(config.size(), equalTo(0L));
+        assertThat(config.rate(), equalTo(0.0));
+    }
+
+    @Test
+    public void whenMethodReturnsUnsupportedPrimitive_shouldFailToGenerate() {
+        assertThrows(IllegalArgumentException.class, () -> newInstance(UnsupportedPrimitiveConfig.class));
+    }
+
+    private <T> T newInstance(final Class<T> configInterface) {
+        return GeneratedProxyFactory.newInstance(configInterface, handler.resolvers(configInterface));
+    }
+
+    private <T> void givenConfiguration(final String key, final Map<String, String> context, final T value) {
+        final Configuration<T> configuration = new Configuration<>(key, "description", Set.of(), value);
+        when(repository.get(key)).thenReturn(Optional.of(configuration));
+        when(conditionsProcessor.process(configuration, context)).thenReturn(value);
+    }
+
+    interface GeneratedConfig {
+
+        String plainValue();
+
+        Integer contextualValue(ContextProvider contextProvider);
+
+        Boolean mixedValue(long unrelated, ContextProvider first, double alsoUnrelated, ContextProvider second);
+
+        String manyContexts(ContextProvider first, Object second, ContextProvider third, ContextProvider fourth);
+    }
+
+    interface InheritingGeneratedConfig extends GeneratedConfig {
+    }
+
+    interface PrimitiveConfig {
+
+        boolean enabled(ContextProvider contextProvider);
+
+        int limit();
+
+        long size();
+
+        double rate();
+    }
+
+    interface UnsupportedPrimitiveConfig {
+        float ratio();
+    }
+
+    private static class SingleContextProvider implements ContextProvider {
+
+        private final String name;
+        private final String value;
+
+        SingleContextProvider(final String name, final String value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public String getContextParam(final String name) {
+            return this.name.equals(name) ? value : null;
+        }
+
+        @Override
+        public Set<String> getProvidedContexts() {
+            return Set.of(name);
+        }
+    }
+}
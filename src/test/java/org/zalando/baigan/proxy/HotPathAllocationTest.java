@@ -0,0 +1,215 @@
+package org.zalando.baigan.proxy;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.zalando.baigan.annotation.BaiganConfig;
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.model.Condition;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.EndsWith;
+import org.zalando.baigan.model.Equals;
+import org.zalando.baigan.model.In;
+import org.zalando.baigan.proxy.handler.ConditionsProcessor;
+import org.zalando.baigan.proxy.handler.ContextAwareConfigurationMethodInvocationHandler;
+import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+import org.zalando.baigan.repository.SnapshotRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Ensures that resolving a configuration does not allocate once the caches of the invocation path are warm.
+ * <p>
+ * Allocations are measured with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} over many
+ * calls, so that one-off allocations, e.g. by the JIT compiler, do not fail the test while a single object
+ * allocated per call does. As some allocations are only eliminated once the call is compiled by the optimizing
+ * compiler, the calls are measured in rounds until one of them stays within the expected allocation, up to a
+ * limit.
+ * <p>
+ * Proxies of the {@link ProxyEngine#REFLECTION} engine pass the arguments of a call to the invocation handler in an
+ * array allocated by {@link java.lang.reflect.Proxy}. Whether the JIT compiler eliminates it depends on the methods
+ * called before, so calls with arguments through these proxies may allocate that array, but nothing else.
+ */
+public class HotPathAllocationTest {
+
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 100_000;
+    private static final int MAX_MEASURED_ROUNDS = 20;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final ContextProvider COUNTRY_DE = new FixedContextProvider("country", "de");
+    private static final ContextProvider COUNTRY_XX = new FixedContextProvider("country", "xx");
+    private static final ContextProvider SHOP = new FixedContextProvider("shop", "shop-42");
+
+    private static volatile Object[] arraySink;
+
+    private static AllocationConfig reflectionConfig;
+    private static AllocationConfig generatedConfig;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        assumeTrue(THREAD_MX_BEAN.isThreadAllocatedMemorySupported(), "Thread allocated memory is not supported");
+        THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+        final List<Condition<String>> conditions = new ArrayList<>();
+        for (final String country : new String[]{"at", "ch", "fr", "it", "nl", "pl", "DE"}) {
+            conditions.add(new Condition<>("country", new Equals(country), "country " + country));
+        }
+        conditions.add(new Condition<>("shop", new In(Set.of("shop-1", "shop-2")), "shop in"));
+        conditions.add(new Condition<>("shop", new EndsWith(Set.of("-42")), "shop ends with"));
+
+        final ConfigurationRepository repository = new SnapshotRepository(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("allocation.config.plain.value", "", Set.of(), "plain"),
+                new Configuration<>("allocation.config.country.value", "", conditions.subList(0, 7), "default"),
+                new Configuration<>("allocation.config.country.and.shop.value", "", conditions, "default"),
+                new Configuration<>("allocation.config.country.limit", "", List.of(
+                        new Condition<>("country", new Equals("de"), 1000)
+                ), 2000)
+        )));
+        reflectionConfig = createConfiguration(repository, ProxyEngine.REFLECTION);
+        generatedConfig = createConfiguration(repository, ProxyEngine.GENERATED);
+    }
+
+    @Test
+    public void whenConfigurationHasNoConditions_shouldNotAllocate() {
+        assertNoAllocation(() -> reflectionConfig.plainValue(), "plain");
+        assertNoAllocation(() -> generatedConfig.plainValue(), "plain");
+    }
+
+    @Test
+    public void whenConditionMatchesContext_shouldNotAllocate() {
+        assertOnlyArgumentArrayAllocated(() -> reflectionConfig.countryValue(COUNTRY_DE), "country DE", 1);
+        assertNoAllocation(() -> generatedConfig.countryValue(COUNTRY_DE), "country DE");
+    }
+
+    @Test
+    public void whenNoConditionMatchesContext_shouldNotAllocate() {
+        assertOnlyArgumentArrayAllocated(() -> reflectionConfig.countryValue(COUNTRY_XX), "default", 1);
+        assertNoAllocation(() -> generatedConfig.countryValue(COUNTRY_XX), "default");
+    }
+
+    @Test
+    public void whenSeveralContextProvidersAreGiven_shouldNotAllocate() {
+        assertOnlyArgumentArrayAllocated(() -> reflectionConfig.countryAndShopValue(COUNTRY_XX, SHOP), "shop ends with", 2);
+        assertNoAllocation(() -> generatedConfig.countryAndShopValue(COUNTRY_XX, SHOP), "shop ends with");
+    }
+
+    @Test
+    public void whenMethodReturnsPrimitive_shouldNotBoxValue() {
+        assertOnlyArgumentArrayAllocated(() -> String.valueOf(reflectionConfig.countryLimit(COUNTRY_DE) == 1000), "true", 1);
+        assertOnlyArgumentArrayAllocated(() -> String.valueOf(reflectionConfig.countryLimit(COUNTRY_XX) == 2000), "true", 1);
+        assertNoAllocation(() -> String.valueOf(generatedConfig.countryLimit(COUNTRY_DE) == 1000), "true");
+        assertNoAllocation(() -> String.valueOf(generatedConfig.countryLimit(COUNTRY_XX) == 2000), "true");
+    }
+
+    private static void assertNoAllocation(final Supplier<String> call, final String expectedValue) {
+        assertAllocationPerCall(call, expectedValue, 0);
+    }
+
+    private static void assertOnlyArgumentArrayAllocated(final Supplier<String> call, final String expectedValue,
+                                                         final int argumentCount) {
+        assertAllocationPerCall(call, expectedValue, arraySize(argumentCount));
+    }
+
+    private static void assertAllocationPerCall(final Supplier<String> call, final String expectedValue,
+                                                final long maxAllocatedPerCall) {
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            assertThat(call.get(), equalTo(expectedValue));
+        }
+
+        final double limit = maxAllocatedPerCall + 1.0;
+        double allocatedPerCall = Double.MAX_VALUE;
+        for (int round = 0; round < MAX_MEASURED_ROUNDS && allocatedPerCall >= limit; round++) {
+            final long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+            int mismatches = 0;
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                if (!expectedValue.equals(call.get())) {
+                    mismatches++;
+                }
+            }
+            final long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertThat(mismatches, equalTo(0));
+            allocatedPerCall = (double) allocated / MEASURED_CALLS;
+        }
+
+        assertThat("Bytes allocated per call", allocatedPerCall, lessThan(limit));
+    }
+
+    /**
+     * Measures the size of an object array of the given length, which depends on the object layout of the JVM.
+     */
+    private static long arraySize(final int length) {
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            arraySink = new Object[length];
+        }
+        return (THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_CALLS;
+    }
+
+    private static AllocationConfig createConfiguration(final ConfigurationRepository repository,
+                                                        final ProxyEngine proxyEngine) throws Exception {
+        final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        final ContextAwareConfigurationMethodInvocationHandler handler = new ContextAwareConfigurationMethodInvocationHandler();
+        handler.setBeanFactory(beanFactory);
+        beanFactory.addBean("configurationRepository", repository);
+        beanFactory.addBean("conditionsProcessor", new ConditionsProcessor());
+        beanFactory.addBean("configurationMethodInvocationHandler", handler);
+
+        final ConfigurationServiceBeanFactory factory = new ConfigurationServiceBeanFactory();
+        factory.setCandidateInterface(AllocationConfig.class);
+        factory.setProxyEngine(proxyEngine);
+        factory.setBeanFactory(beanFactory);
+        factory.afterPropertiesSet();
+        return (AllocationConfig) factory.getObject();
+    }
+
+    @BaiganConfig
+    interface AllocationConfig {
+
+        String plainValue();
+
+        String countryValue(ContextProvider contextProvider);
+
+        String countryAndShopValue(ContextProvider country, ContextProvider shop);
+
+        int countryLimit(ContextProvider contextProvider);
+    }
+
+    private static final class FixedContextProvider implements ContextProvider {
+
+        private final String name;
+        private final String value;
+        private final Set<String> providedContexts;
+
+        private FixedContextProvider(final String name, final String value) {
+            this.name = name;
+            this.value = value;
+            this.providedContexts = Set.of(name);
+        }
+
+        @Override
+        public String getContextParam(final String name) {
+            return this.name.equals(name) ? value : null;
+        }
+
+        @Override
+        public Set<String> getProvidedContexts() {
+            return providedContexts;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.zalando.baigan.proxy.handler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.fixture.HandleConfiguration;
+import org.zalando.baigan.model.Condition;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.Equals;
+import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BaiganEvaluatorTest {
+
+    private final ConfigurationRepository repository = mock(ConfigurationRepository.class);
+    private final BeanFactory beanFactory = mock(BeanFactory.class);
+    private final ContextAwareConfigurationMethodInvocationHandler handler = new ContextAwareConfigurationMethodInvocationHandler();
+    private final BaiganEvaluator evaluator = new BaiganEvaluator(handler);
+
+    @BeforeEach
+    public void setup() {
+        when(beanFactory.getBean(ConfigurationRepository.class)).thenReturn(repository);
+        when(beanFactory.getBean(ConditionsProcessor.class)).thenReturn(new ConditionsProcessor());
+        handler.setBeanFactory(beanFactory);
+    }
+
+    @Test
+    public void whenKeysAreEvaluated_shouldResolveContextOnceAndReadSingleSnapshot() {
+        final ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(List.of(
+                new Configuration<>("some.flag", null, List.of(
+                        new Condition<>("country", new Equals("DE"), true)
+                ), false),
+                new Configuration<>("some.limit", null, List.of(
+                        new Condition<>("country", new Equals("FR"), 1),
+                        new Condition<>("country", new Equals("DE"), 2)
+                ), 0),
+                new Configuration<>("some.value", null, Set.of(), "value")
+        ));
+        final ConfigurationSnapshot laterSnapshot = ConfigurationSnapshot.of(List.of());
+        when(repository.getSnapshot()).thenReturn(snapshot, laterSnapshot);
+        final ContextProvider country = mock(ContextProvider.class);
+        when(country.getProvidedContexts()).thenReturn(Set.of("country"));
+        when(country.getContextParam("country")).thenReturn("DE");
+
+        final EvaluationResult result = evaluator.evaluateAll(
+                List.of("some.flag", "some.limit", "some.value", "some.missing.value", "some.flag"), country);
+
+        assertThat(result.getKeys(), contains("some.flag", "some.limit", "some.value", "some.missing.value"));
+        assertThat(result.get("some.flag"), equalTo(true));
+        assertThat(result.get("some.limit", Integer.class), equalTo(2));
+        assertThat(result.get(2), equalTo("value"));
+        assertThat(result.get("some.missing.value"), nullValue());
+        assertThat(result.getSnapshotVersion(), equalTo(snapshot.getVersion()));
+        verify(country, times(1)).getContextParam("country");
+        verify(repository, times(1)).getSnapshot();
+        assertThrows(IllegalArgumentException.class, () -> result.get("some.other.key"));
+    }
+
+    @Test
+    public void whenBatchIsEvaluatedAgain_shouldReadCurrentSnapshot() {
+        final EvaluationBatch batch = evaluator.batch(List.of("some.value"));
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("some.value", null, Set.of(), "value")
+        )));
+        final EvaluationResult result = batch.evaluate();
+
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("some.value", null, Set.of(), "updated value")
+        )));
+
+        assertThat(batch.evaluate().get("some.value"), equalTo("updated value"));
+        assertThat(result.get("some.value"), equalTo("value"));
+    }
+
+    @Test
+    public void whenInterfaceIsEvaluated_shouldEvaluateKeysOfAllMethods() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("handle.configuration.some.value", null, Set.of(), "some value"),
+                new Configuration<>("handle.configuration.country.value", null, Set.of(), 42)
+        )));
+
+        final EvaluationResult result = evaluator.evaluateAll(HandleConfiguration.class);
+
+        assertThat(result.getKeys(), contains("handle.configuration.country.value", "handle.configuration.some.value"));
+        assertThat(result.get("handle.configuration.some.value"), equalTo("some value"));
+        assertThat(result.get("handle.configuration.country.value"), nullValue());
+    }
+
+    @Test
+    public void whenColumnsAreEvaluated_shouldEvaluateConditionsForEachRow() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(commissionRate())));
+
+        final Object[] values = evaluator.evaluateColumns("commission.rate", Map.of(
+                "merchant", new String[]{"m1", "M3", null, "m2", "m9"},
+                "country", new String[]{"DE", "DE", "FR", "FR", "FR"}
+        ));
+
+        assertThat(values, arrayContaining(1.0, 3.0, 0.5, 2.0, 0.5));
+    }
+
+    @Test
+    public void whenColumnsAreEvaluatedConcurrently_shouldMatchSequentialEvaluation() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(commissionRate())));
+        final String[] merchants = new String[1001];
+        for (int i = 0; i < merchants.length; i++) {
+            merchants[i] = "m" + (i % 7);
+        }
+        final Map<String, String[]> columns = Map.of("merchant", merchants);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Object[] values = evaluator.evaluateColumns("commission.rate", columns, executor, 4);
+
+            assertThat(Arrays.asList(values), equalTo(Arrays.asList(evaluator.evaluateColumns("commission.rate", columns))));
+            assertThat(values[1000], equalTo(0.5));
+            assertThat(values[1001 - 7 + 4], equalTo(4.0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void whenColumnsAreEvaluatedForMissingKey_shouldReturnNullForEachRow() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of()));
+
+        final Object[] values = evaluator.evaluateColumns("commission.rate", Map.of("merchant", new String[3]));
+
+        assertThat(values, arrayContaining(nullValue(), nullValue(), nullValue()));
+    }
+
+    @Test
+    public void whenColumnsDifferInLength_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluateColumns("commission.rate", Map.of(
+                "merchant", new String[2],
+                "country", new String[3]
+        )));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluateColumns("commission.rate", Map.of()));
+    }
+
+    private static Configuration<Double> commissionRate() {
+        return new Configuration<>("commission.rate", null, List.of(
+                new Condition<>("merchant", new Equals("m1"), 1.0),
+                new Condition<>("merchant", new Equals("m2"), 2.0),
+                new Condition<>("merchant", new Equals("m3"), 3.0),
+                new Condition<>("merchant", new Equals("m4"), 4.0),
+                new Condition<>("country", new Equals("DE"), 0.8)
+        ), 0.5);
+    }
+}
@@ -0,0 +1,139 @@
+package org.zalando.baigan.proxy.handler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.zalando.baigan.context.ContextProvider;
+import org.zalando.baigan.fixture.HandleConfiguration;
+import org.zalando.baigan.model.Condition;
+import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.Equals;
+import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConfigHandleFactoryTest {
+
+    private final ConfigurationRepository repository = mock(ConfigurationRepository.class);
+    private final BeanFactory beanFactory = mock(BeanFactory.class);
+    private final ContextAwareConfigurationMethodInvocationHandler handler = new ContextAwareConfigurationMethodInvocationHandler();
+    private final ConfigHandleFactory factory = new ConfigHandleFactory(handler);
+
+    @BeforeEach
+    public void setup() {
+        when(beanFactory.getBean(ConfigurationRepository.class)).thenReturn(repository);
+        when(beanFactory.getBean(ConditionsProcessor.class)).thenReturn(new ConditionsProcessor());
+        handler.setBeanFactory(beanFactory);
+    }
+
+    @Test
+    public void whenCreatedFromMethodReference_shouldResolveValueOfMethodKey() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("handle.configuration.some.value", null, Set.of(), "some value"),
+                new Configuration<>("handle.configuration.country.value", null, Set.of(
+                        new Condition<>("country", new Equals("DE"), "german value")
+                ), "default value")
+        )));
+
+        final ConfigHandle<String> someValue = factory.of(HandleConfiguration.class, HandleConfiguration::someValue);
+        final ConfigHandle<String> countryValue = factory.of(HandleConfiguration.class, config -> config.countryValue(null));
+
+        assertThat(someValue.getKey(), equalTo("handle.configuration.some.value"));
+        assertThat(someValue.get(), equalTo("some value"));
+        assertThat(countryValue.get(new CountryContextProvider("DE")), equalTo("german value"));
+        assertThat(countryValue.get(new CountryContextProvider("FR"), new OtherContextProvider()), equalTo("default value"));
+        assertThat(countryValue.get(), equalTo("default value"));
+        verify(repository, never()).get("handle.configuration.some.value");
+    }
+
+    @Test
+    public void whenCreatedFromKeyAndType_shouldResolvePrimitiveValues() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("some.flag", null, Set.of(
+                        new Condition<>("country", new Equals("DE"), true)
+                ), false),
+                new Configuration<>("some.limit", null, Set.of(), 42),
+                new Configuration<>("some.size", null, Set.of(), 1L << 40),
+                new Configuration<>("some.rate", null, Set.of(), 0.25)
+        )));
+
+        assertThat(factory.of("some.flag", Boolean.class).getBoolean(), equalTo(false));
+        assertThat(factory.of("some.flag", Boolean.class).getBoolean(new CountryContextProvider("DE")), equalTo(true));
+        assertThat(factory.of("some.limit", Integer.class).getInt(), equalTo(42));
+        assertThat(factory.of("some.size", Long.class).getLong(), equalTo(1L << 40));
+        assertThat(factory.of("some.rate", (Type) Double.class).getDouble(), equalTo(0.25));
+    }
+
+    @Test
+    public void whenKeyHasNoConfiguration_shouldReturnNullOrDefaultValue() {
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(
+                new Configuration<>("some.limit", null, Set.of(), "not a number")
+        )));
+
+        assertThat(factory.of("some.missing.value", String.class).get(), nullValue());
+        assertThat(factory.of("some.missing.flag", Boolean.class).getBoolean(), equalTo(false));
+        assertThat(factory.of("some.limit", Integer.class).getInt(), equalTo(0));
+        assertThat(factory.of("some.missing.rate", Double.class).getDouble(), equalTo(0.0));
+    }
+
+    @Test
+    public void whenPrimitiveTypeDoesNotMatchHandle_shouldThrowException() {
+        final ConfigHandle<String> handle = factory.of("some.value", String.class);
+
+        assertThrows(IllegalStateException.class, handle::getInt);
+        assertThrows(IllegalStateException.class, () -> factory.of("some.limit", Integer.class).getLong());
+    }
+
+    @Test
+    public void whenFunctionDoesNotInvokeSingleMethod_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> factory.of(HandleConfiguration.class, config -> "constant"));
+        assertThrows(IllegalArgumentException.class,
+                () -> factory.of(HandleConfiguration.class, config -> config.someValue() + config.countryValue(null)));
+        assertThrows(IllegalArgumentException.class, () -> factory.of(Runnable.class, runnable -> null));
+    }
+
+    private static final class CountryContextProvider implements ContextProvider {
+
+        private final String country;
+
+        private CountryContextProvider(final String country) {
+            this.country = country;
+        }
+
+        @Override
+        public String getContextParam(@Nonnull final String name) {
+            return country;
+        }
+
+        @Override
+        public Set<String> getProvidedContexts() {
+            return Set.of("country");
+        }
+    }
+
+    private static final class OtherContextProvider implements ContextProvider {
+
+        @Override
+        public String getContextParam(@Nonnull final String name) {
+            return "other";
+        }
+
+        @Override
+        public Set<String> getProvidedContexts() {
+            return Set.of("other");
+        }
+    }
+}
@@ -5,18 +5,27 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.BeanFactory;
+import org.zalando.baigan.model.Condition;
 import org.zalando.baigan.model.Configuration;
+import org.zalando.baigan.model.Equals;
 import org.zalando.baigan.context.ContextProvider;
 import org.zalando.baigan.repository.ConfigurationRepository;
+import org.zalando.baigan.repository.ConfigurationSnapshot;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import static com.google.common.reflect.Reflection.newProxy;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class ContextAwareConfigurationMethodInvocationHandlerTest {
@@ -96,10 +105,82 @@ public class ContextAwareConfigurationMethodInvocationHandlerTest {
                 "Cannot have more than one context provider for the same context key");
     }
 
+    @Test
+    public void whenInvokedThroughInterfaceHandler_shouldUseKeyAndContextProvidersFromDispatchTable() {
+        final String contextualKey = "test.interface.with.context.get.contextual.value";
+        final Configuration<String> contextualConfig = new Configuration<>(contextualKey, "description", Set.of(), expectedConfigValue);
+        when(repository.get(contextualKey)).thenReturn(Optional.of(contextualConfig));
+        when(conditionsProcessor.process(contextualConfig, Map.of("param1", "value1", "param2", "value2"))).thenReturn(expectedConfigValue);
+
+        final TestInterfaceWithContext proxy = newProxy(TestInterfaceWithContext.class, handler.forInterface(TestInterfaceWithContext.class));
+
+        assertThat(proxy.getContextualValue("unrelated", new TestContextProvider()), equalTo(expectedConfigValue));
+    }
+
+    @Test
+    public void whenConfigurationHasNoConditions_shouldNotResolveContext() {
+        when(repository.get(key)).thenReturn(Optional.of(config));
+        when(beanFactory.getBean(ConditionsProcessor.class)).thenReturn(new ConditionsProcessor());
+        final ContextProvider contextProvider = mock(ContextProvider.class);
+
+        final Object result = handler.handleInvocation((TestInterface) () -> null, TestInterface.class.getDeclaredMethods()[0], new Object[]{contextProvider});
+
+        assertThat(result, equalTo(expectedConfigValue));
+        verifyNoInteractions(contextProvider);
+    }
+
+    @Test
+    public void whenConditionMatches_shouldOnlyResolveContextParamsUpToMatchingCondition() {
+        final Configuration<String> conditionalConfig = new Configuration<>(key, "description", Set.of(
+                new Condition<>("param1", new Equals("value1"), "conditional value")
+        ), expectedConfigValue);
+        when(repository.get(key)).thenReturn(Optional.of(conditionalConfig));
+        when(beanFactory.getBean(ConditionsProcessor.class)).thenReturn(new ConditionsProcessor());
+        final ContextProvider contextProvider = spy(new TestContextProvider());
+
+        final Object result = handler.handleInvocation((TestInterface) () -> null, TestInterface.class.getDeclaredMethods()[0], new Object[]{contextProvider});
+
+        assertThat(result, equalTo("conditional value"));
+        verify(contextProvider).getContextParam("param1");
+        verify(contextProvider, never()).getContextParam("param2");
+    }
+
+    @Test
+    public void whenRepositoryProvidesSnapshot_shouldServeUnconditionedConfigurationPerSnapshot() {
+        final Configuration<String> updatedConfig = new Configuration<>(key, "description", Set.of(), "updated value");
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(config)));
+        final TestInterface proxy = newProxy(TestInterface.class, handler.forInterface(TestInterface.class));
+
+        assertThat(proxy.getSomeValue(), equalTo(expectedConfigValue));
+        assertThat(proxy.getSomeValue(), equalTo(expectedConfigValue));
+
+        when(repository.getSnapshot()).thenReturn(ConfigurationSnapshot.of(List.of(updatedConfig)));
+        assertThat(proxy.getSomeValue(), equalTo("updated value"));
+
+        verifyNoInteractions(conditionsProcessor);
+        verify(repository, never()).get(key);
+    }
+
+    @Test
+    public void whenPrimitiveConfigurationIsMissing_shouldReturnDefaultValueOfPrimitive() {
+        when(repository.get("primitive.interface.is.enabled")).thenReturn(Optional.empty());
+        final PrimitiveInterface proxy = newProxy(PrimitiveInterface.class, handler.forInterface(PrimitiveInterface.class));
+
+        assertThat(proxy.isEnabled(), equalTo(false));
+    }
+
+    interface PrimitiveInterface {
+        boolean isEnabled();
+    }
+
     interface TestInterface {
         String getSomeValue();
     }
 
+    interface TestInterfaceWithContext {
+        String getContextualValue(String unrelated, TestContextProvider contextProvider);
+    }
+
     static class TestContextProvider implements ContextProvider {
 
         private final Set<String> PARAMS = Set.of("param1","param2");
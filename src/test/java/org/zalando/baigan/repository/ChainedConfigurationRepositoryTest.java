@@ -0,0 +1,88 @@
+package org.zalando.baigan.repository;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.baigan.model.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.zalando.baigan.repository.SnapshotRepository.configuration;
+import static org.zalando.baigan.repository.SnapshotRepository.snapshot;
+
+public class ChainedConfigurationRepositoryTest {
+
+    private final Configuration<String> override = configuration("some.config.key", "override");
+    private final Configuration<String> fallback = configuration("some.config.key", "fallback");
+    private final Configuration<String> other = configuration("some.other.key", "other");
+
+    @Test
+    public void whenAllRepositoriesHaveSnapshots_shouldLookUpKeysInMergedSnapshot() {
+        final ChainedConfigurationRepository repository = new ChainedConfigurationRepositoryBuilder()
+                .addRepository(new SnapshotRepository(snapshot(override)))
+                .addRepository(new SnapshotRepository(snapshot(fallback, other)))
+                .build();
+
+        assertThat(repository.getSnapshot().get(0, "some.config.key"), sameInstance(override));
+        assertThat(repository.getSnapshot().get(1, "some.other.key"), sameInstance(other));
+        assertThat(repository.get("some.config.key"), equalTo(Optional.of(override)));
+        assertThat(repository.get("some.missing.key"), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void whenRepositoryPublishesSnapshot_shouldMergeSnapshotsAgainAndNotifyListeners() {
+        final SnapshotRepository overrides = new SnapshotRepository(snapshot(override));
+        final ChainedConfigurationRepository repository = new ChainedConfigurationRepositoryBuilder()
+                .addRepository(overrides)
+                .addRepository(new SnapshotRepository(snapshot(fallback, other)))
+                .build();
+        final List<ConfigurationSnapshot> published = new ArrayList<>();
+        repository.addSnapshotListener(published::add);
+
+        overrides.publish(snapshot());
+
+        assertThat(repository.get("some.config.key"), equalTo(Optional.of(fallback)));
+        assertThat(published, contains(repository.getSnapshot()));
+    }
+
+    @Test
+    public void whenListenerRegistrationIsClosed_shouldNotNotifyListener() {
+        final SnapshotRepository overrides = new SnapshotRepository(snapshot(override));
+        final ChainedConfigurationRepository repository = new ChainedConfigurationRepositoryBuilder()
+                .addRepository(overrides)
+                .addRepository(new SnapshotRepository(snapshot(fallback)))
+                .build();
+        final List<ConfigurationSnapshot> published = new ArrayList<>();
+        final List<ConfigurationSnapshot> publishedToClosed = new ArrayList<>();
+        repository.addSnapshotListener(published::add);
+        final SnapshotListenerRegistration registration = repository.addSnapshotListener(publishedToClosed::add);
+
+        registration.close();
+        registration.close();
+        overrides.publish(snapshot());
+
+        assertThat(published, contains(repository.getSnapshot()));
+        assertThat(publishedToClosed, empty());
+    }
+
+    @Test
+    public void whenRepositoryHasNoSnapshot_shouldCheckRepositoriesInOrder() {
+        final ConfigurationRepository keyValueRepository = mock(ConfigurationRepository.class);
+        when(keyValueRepository.get("some.config.key")).thenReturn(Optional.empty());
+        final ChainedConfigurationRepository repository = new ChainedConfigurationRepositoryBuilder()
+                .addRepository(keyValueRepository)
+                .addRepository(new SnapshotRepository(snapshot(fallback)))
+                .build();
+
+        assertThat(repository.getSnapshot(), nullValue());
+        assertThat(repository.get("some.config.key"), equalTo(Optional.of(fallback)));
+    }
+}
@@ -0,0 +1,99 @@
+package org.zalando.baigan.repository;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.baigan.model.Configuration;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.zalando.baigan.repository.SnapshotRepository.configuration;
+import static org.zalando.baigan.repository.SnapshotRepository.snapshot;
+
+public class ConfigurationChangePublisherTest {
+
+    private final Configuration<String> value = configuration("some.config.key", "value");
+    private final Configuration<String> changedValue = configuration("some.config.key", "changed");
+    private final Configuration<String> other = configuration("some.other.key", "other");
+
+    @Test
+    public void whenRepositoryReloads_shouldPublishChangedKeysOnExecutor() throws InterruptedException {
+        final SnapshotRepository repository = new SnapshotRepository(snapshot(value, other));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ConfigurationChangePublisher publisher = new ConfigurationChangePublisher(repository, executor, 16)) {
+            final QueueingSubscriber subscriber = new QueueingSubscriber();
+            publisher.subscribe(subscriber);
+            final ConfigurationSnapshot previous = repository.getSnapshot();
+
+            repository.publish(snapshot(changedValue, other));
+            repository.publish(snapshot(changedValue, other));
+            repository.publish(snapshot(changedValue));
+
+            final ConfigurationChange change = subscriber.changes.poll(10, TimeUnit.SECONDS);
+            assertThat(change.getKey(), equalTo("some.config.key"));
+            assertThat(change.getPreviousConfiguration(), sameInstance(value));
+            assertThat(change.getConfiguration(), sameInstance(changedValue));
+            assertThat(change.getPreviousVersion(), equalTo(previous.getVersion()));
+            final ConfigurationChange removal = subscriber.changes.poll(10, TimeUnit.SECONDS);
+            assertThat(removal.getKey(), equalTo("some.other.key"));
+            assertThat(removal.getConfiguration(), nullValue());
+            assertThat(removal.getVersion(), equalTo(repository.getSnapshot().getVersion()));
+            assertThat(subscriber.threads.poll(), not(sameInstance(Thread.currentThread())));
+            assertThat(subscriber.changes.poll(100, TimeUnit.MILLISECONDS), nullValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenClosed_shouldStopListeningToRepository() {
+        final SnapshotRepository repository = new SnapshotRepository(snapshot(value));
+        final ConfigurationChangePublisher publisher = new ConfigurationChangePublisher(repository);
+        assertThat(repository.getListenerCount(), equalTo(1));
+
+        publisher.close();
+
+        assertThat(repository.getListenerCount(), equalTo(0));
+    }
+
+    @Test
+    public void whenRepositoryHasNoSnapshot_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConfigurationChangePublisher(mock(ConfigurationRepository.class)));
+    }
+
+    private static final class QueueingSubscriber implements Flow.Subscriber<ConfigurationChange> {
+
+        private final BlockingQueue<ConfigurationChange> changes = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(final ConfigurationChange change) {
+            threads.add(Thread.currentThread());
+            changes.add(change);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.zalando.baigan.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ConfigurationFormatTest {
+
+    @Test
+    public void whenContentIsText_shouldDetectJson() {
+        assertThat(ConfigurationFormat.detect("[]".getBytes(StandardCharsets.UTF_8)), equalTo(ConfigurationFormat.JSON));
+        assertThat(ConfigurationFormat.detect(" \n[]".getBytes(StandardCharsets.UTF_8)), equalTo(ConfigurationFormat.JSON));
+        assertThat(ConfigurationFormat.detect("\uFEFF[]".getBytes(StandardCharsets.UTF_8)), equalTo(ConfigurationFormat.JSON));
+        assertThat(ConfigurationFormat.detect(new byte[0]), equalTo(ConfigurationFormat.JSON));
+    }
+
+    @Test
+    public void whenContentHasSmileHeader_shouldDetectSmile() {
+        assertThat(ConfigurationFormat.detect(new byte[]{':', ')', '\n', 0x03, (byte) 0xF8, (byte) 0xF9}),
+                equalTo(ConfigurationFormat.SMILE));
+    }
+
+    @Test
+    public void whenContentStartsWithCborArrayOrTag_shouldDetectCbor() {
+        assertThat(ConfigurationFormat.detect(new byte[]{(byte) 0x80}), equalTo(ConfigurationFormat.CBOR));
+        assertThat(ConfigurationFormat.detect(new byte[]{(byte) 0x9F, (byte) 0xFF}), equalTo(ConfigurationFormat.CBOR));
+        assertThat(ConfigurationFormat.detect(new byte[]{(byte) 0xD9, (byte) 0xD9, (byte) 0xF7, (byte) 0x80}),
+                equalTo(ConfigurationFormat.CBOR));
+    }
+
+    @Test
+    public void whenContentTypeIsKnown_shouldReturnFormat() {
+        assertThat(ConfigurationFormat.fromContentType("application/json; charset=utf-8"),
+                equalTo(Optional.of(ConfigurationFormat.JSON)));
+        assertThat(ConfigurationFormat.fromContentType("application/x-jackson-smile"),
+                equalTo(Optional.of(ConfigurationFormat.SMILE)));
+        assertThat(ConfigurationFormat.fromContentType("Application/CBOR"), equalTo(Optional.of(ConfigurationFormat.CBOR)));
+    }
+
+    @Test
+    public void whenContentTypeIsUnknown_shouldReturnEmpty() {
+        assertThat(ConfigurationFormat.fromContentType(null), equalTo(Optional.empty()));
+        assertThat(ConfigurationFormat.fromContentType("binary/octet-stream"), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void whenContentTypeIsMissing_shouldDetectFormatOfDocumentByContent() {
+        final ConfigurationDocument smile = ConfigurationConverter.convert(ConfigurationDocument.ofJson("[]"),
+                ConfigurationFormat.SMILE);
+
+        assertThat(ConfigurationDocument.of(smile.getContent(), "binary/octet-stream").getFormat(),
+                equalTo(ConfigurationFormat.SMILE));
+        assertThat(ConfigurationDocument.of(smile.getContent(), "application/cbor").getFormat(),
+                equalTo(ConfigurationFormat.CBOR));
+    }
+}
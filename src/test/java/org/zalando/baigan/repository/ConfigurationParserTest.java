@@ -2,24 +2,45 @@ package org.zalando.baigan.repository;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.zalando.baigan.model.Condition;
 import org.zalando.baigan.model.Configuration;
 import org.zalando.baigan.model.Equals;
 import org.zalando.baigan.proxy.BaiganConfigClasses;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Optional.empty;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -115,6 +136,25 @@ public class ConfigurationParserTest {
         assertThat(parsedConfigs, equalTo(List.of(expectedConfig)));
     }
 
+    @Test
+    public void whenInputHasSeveralConditions_shouldKeepFileOrderUnlessPrioritized() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"default\",\"conditions\":[" +
+                "{\"paramName\":\"param\",\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"c\"},\"value\":\"first\"}," +
+                "{\"paramName\":\"param\",\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"b\"},\"value\":\"second\",\"priority\":2}," +
+                "{\"paramName\":\"param\",\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"a\"},\"value\":\"third\"}," +
+                "{\"paramName\":\"param\",\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"d\"},\"value\":\"fourth\",\"priority\":1}" +
+                "]}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", String.class));
+
+        final List<Configuration<?>> parsedConfigs = parser.parseConfigurations(input);
+
+        assertThat(
+                parsedConfigs.get(0).getConditions().stream().map(Condition::getValue).map(String.class::cast).collect(toList()),
+                equalTo(List.of("fourth", "second", "first", "third"))
+        );
+    }
+
     @Test
     public void whenDefaultValueCannotBeParsed_shouldThrowException() {
         final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":{}}]";
@@ -149,6 +189,396 @@ public class ConfigurationParserTest {
         )));
     }
 
+    @Test
+    public void whenInputIsDocumentInAnyFormat_shouldParseSameConfigurations() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"description\":\"a description\"," +
+                "\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}," +
+                "\"conditions\":[{\"paramName\":\"some param name\",\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"some value\"}," +
+                "\"value\":{\"someConfig\":\"some conditional value\",\"someOtherConfig\":-1}}]}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", StructuredConfig.class));
+
+        for (final ConfigurationFormat format : ConfigurationFormat.values()) {
+            final ConfigurationDocument document = ConfigurationConverter.convert(ConfigurationDocument.ofJson(input), format);
+
+            assertThat(ConfigurationDocument.of(document.getContent()).getFormat(), equalTo(format));
+            assertThat(parser.parseDocument(document), equalTo(parser.parseConfigurations(input)));
+        }
+    }
+
+    @Test
+    public void whenDocumentIsEmpty_shouldReturnEmptyList() {
+        assertThat(parser.parseDocument(ConfigurationDocument.of(new byte[0])), equalTo(List.of()));
+    }
+
+    @Test
+    public void whenAliasIsNotFirstField_shouldParseConfiguration() {
+        final String input = "[{\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}," +
+                "\"description\":\"a description\",\"alias\":\"some.config.some.key\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", StructuredConfig.class));
+
+        assertThat(parser.parseConfigurations(input), equalTo(List.of(new Configuration<>(
+                "some.config.some.key", "a description", Set.of(), new StructuredConfig("some value", 1)
+        ))));
+    }
+
+    @Test
+    public void whenAliasIsUnknown_shouldSkipEntryWithoutInterpretingIt() {
+        final String input = "[{\"alias\":\"some.missing.config.key\",\"unknownField\":[1,{\"a\":[]}]," +
+                "\"defaultValue\":{\"deeply\":{\"nested\":[{\"value\":true}]}}}," +
+                "{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", String.class));
+
+        assertThat(parser.parseConfigurations(input), equalTo(List.of(
+                new Configuration<>("some.config.some.key", null, Set.of(), "someValue")
+        )));
+    }
+
+    @Test
+    public void whenKnownEntryHasUnknownField_shouldThrowException() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"unknownField\":1,\"defaultValue\":\"someValue\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", String.class));
+
+        assertThrows(UncheckedIOException.class, () -> parser.parseConfigurations(input));
+    }
+
+    @Test
+    public void whenDocumentIsParsedAgain_shouldReuseConfigurationsOfUnchangedEntries() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.missing.config.key\",\"defaultValue\":\"ignored\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+        final String changedInput = input.replace("\"someOtherConfig\":1", "\"someOtherConfig\":2");
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+
+        for (final ConfigurationFormat format : ConfigurationFormat.values()) {
+            final ConfigurationSnapshot previous = parser.parseSnapshot(
+                    ConfigurationConverter.convert(ConfigurationDocument.ofJson(input), format), null);
+            final ConfigurationSnapshot snapshot = parser.parseSnapshot(
+                    ConfigurationConverter.convert(ConfigurationDocument.ofJson(changedInput), format), previous);
+
+            assertThat(snapshot.size(), equalTo(2));
+            assertThat(snapshot.get("some.config.some.key"), sameInstance(previous.get("some.config.some.key")));
+            assertThat(snapshot.get("some.struct.config"), not(sameInstance(previous.get("some.struct.config"))));
+            assertThat(snapshot.get("some.struct.config").getDefaultValue(), equalTo(new StructuredConfig("some value", 2)));
+        }
+    }
+
+    @Test
+    public void whenSmileDocumentSharesNames_shouldParseItCompletely() throws IOException {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+        final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        final ConfigurationDocument document = ConfigurationDocument.of(
+                smileMapper.writeValueAsBytes(new ObjectMapper().readTree(input)), ConfigurationFormat.SMILE);
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+
+        final ConfigurationSnapshot previous = parser.parseSnapshot(document, null);
+        final ConfigurationSnapshot snapshot = parser.parseSnapshot(document, previous);
+
+        assertThat(snapshot.get("some.struct.config"), equalTo(previous.get("some.struct.config")));
+        assertThat(snapshot.get("some.struct.config"), not(sameInstance(previous.get("some.struct.config"))));
+    }
+
+    @Test
+    public void whenDeserializedInParallel_shouldMatchSequentialResult() throws InterruptedException {
+        final Map<String, Type> configTypesByKey = new HashMap<>();
+        final StringJoiner input = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 200; i++) {
+            configTypesByKey.put("some.struct.config." + i, StructuredConfig.class);
+            input.add("{\"alias\":\"some.struct.config." + i + "\",\"defaultValue\":{\"someConfig\":\"value " + i +
+                    "\",\"someOtherConfig\":" + i + "},\"conditions\":[{\"paramName\":\"param\"," +
+                    "\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"a\"},\"value\":{\"someConfig\":\"conditional\",\"someOtherConfig\":-1}}]}");
+        }
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(configTypesByKey);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final SnapshotParseOptions options = SnapshotParseOptions.defaults().withParallelDeserialization(executor, 0);
+            for (final ConfigurationFormat format : ConfigurationFormat.values()) {
+                final ConfigurationDocument document = ConfigurationConverter.convert(
+                        ConfigurationDocument.ofJson(input.toString()), format);
+
+                final ConfigurationSnapshot expected = parser.parseSnapshot(document, null);
+                final ConfigurationSnapshot snapshot = parser.parseSnapshot(document, null, options);
+
+                assertThat(snapshot.size(), equalTo(200));
+                for (final String key : configTypesByKey.keySet()) {
+                    assertThat(snapshot.get(key), equalTo(expected.get(key)));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void whenDeserializationExecutorDoesNotRunTasks_shouldDeserializeOnCallingThread() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withParallelDeserialization(task -> {
+        }, 0);
+
+        final ConfigurationSnapshot snapshot = parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+
+        assertThat(snapshot.get("some.config.some.key").getDefaultValue(), equalTo("someValue"));
+        assertThat(snapshot.get("some.struct.config").getDefaultValue(), equalTo(new StructuredConfig("some value", 1)));
+    }
+
+    @Test
+    public void whenParsedWithParallelOptions_shouldNotAffectOtherParses() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        final AtomicInteger tasks = new AtomicInteger();
+        final ForkJoinPool executor = new ForkJoinPool(2) {
+            @Override
+            public void execute(final Runnable task) {
+                tasks.incrementAndGet();
+                super.execute(task);
+            }
+        };
+        try {
+            final SnapshotParseOptions options = SnapshotParseOptions.defaults().withParallelDeserialization(executor, 0);
+
+            parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+            final int parallelTasks = tasks.get();
+            final ConfigurationSnapshot snapshot = parser.parseSnapshot(ConfigurationDocument.ofJson(input), null);
+
+            assertThat(parallelTasks, greaterThan(0));
+            assertThat(tasks.get(), equalTo(parallelTasks));
+            assertThat(snapshot.get("some.config.some.key").getDefaultValue(), equalTo("someValue"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenEntryCannotBeDeserializedInParallel_shouldThrowException() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":\"not a struct\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults()
+                .withParallelDeserialization(ForkJoinPool.commonPool(), 0);
+
+        assertThrows(UncheckedIOException.class,
+                () -> parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options));
+    }
+
+    @Test
+    public void whenDeserializedLazily_shouldDeserializeOnFirstLookupOnly() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":\"not a struct\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        when(baiganConfigClasses.getKeyIds()).thenReturn(Map.of("some.config.some.key", 0, "some.struct.config", 1));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        final ConfigurationSnapshot snapshot = parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+
+        assertThat(snapshot.size(), equalTo(2));
+        final Configuration<?> configuration = snapshot.get("some.config.some.key");
+        assertThat(configuration, equalTo(new Configuration<>("some.config.some.key", null, Set.of(), "someValue")));
+        assertThat(snapshot.get(0, "some.config.some.key"), sameInstance(configuration));
+        assertThat(snapshot.get("some.struct.config"), nullValue());
+        assertThat(snapshot.get(1, "some.struct.config"), nullValue());
+    }
+
+    @Test
+    public void whenParsedLazily_shouldStillDeserializeOtherParsesEagerly() {
+        final String input = "[{\"alias\":\"some.struct.config\",\"defaultValue\":\"not a struct\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.struct.config", StructuredConfig.class));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+
+        assertThrows(UncheckedIOException.class, () -> parser.parseSnapshot(ConfigurationDocument.ofJson(input), null));
+    }
+
+    @Test
+    public void whenParsedLazily_shouldNotRetainDocument() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", String.class));
+        final ConfigurationDocument document = ConfigurationDocument.ofJson(input);
+
+        final ConfigurationSnapshot snapshot = parser.parseSnapshot(document, null,
+                SnapshotParseOptions.defaults().withLazyDeserialization(true));
+        Arrays.fill(document.getContent(), (byte) ' ');
+
+        assertThat(snapshot.get("some.config.some.key").getDefaultValue(), equalTo("someValue"));
+    }
+
+    @Test
+    public void whenLazyConfigurationIsLookedUpConcurrently_shouldReturnSameInstance() throws Exception {
+        final String input = "[{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.struct.config", StructuredConfig.class));
+        when(baiganConfigClasses.getKeyIds()).thenReturn(Map.of("some.struct.config", 0));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        final ConfigurationSnapshot snapshot = parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Configuration<?>>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    return snapshot.get(0, "some.struct.config");
+                }));
+            }
+            start.countDown();
+
+            final Configuration<?> configuration = snapshot.get(0, "some.struct.config");
+            for (final Future<Configuration<?>> lookup : lookups) {
+                assertThat(lookup.get(), sameInstance(configuration));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenLazyDocumentIsParsedAgain_shouldReuseConfigurationsThatWereLookedUp() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        when(baiganConfigClasses.getKeyIds()).thenReturn(Map.of("some.config.some.key", 0, "some.struct.config", 1));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        for (final ConfigurationFormat format : ConfigurationFormat.values()) {
+            final ConfigurationDocument document = ConfigurationConverter.convert(ConfigurationDocument.ofJson(input), format);
+            final ConfigurationSnapshot previous = parser.parseSnapshot(document, null, options);
+            final Configuration<?> configuration = previous.get("some.config.some.key");
+
+            final ConfigurationSnapshot snapshot = parser.parseSnapshot(document, previous, options);
+
+            assertThat(snapshot.get("some.config.some.key"), sameInstance(configuration));
+            assertThat(snapshot.get("some.struct.config").getDefaultValue(), equalTo(new StructuredConfig("some value", 1)));
+        }
+    }
+
+    @Test
+    public void whenLazyReloadHasBadValue_shouldKeepPreviousValue() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+        final String reloaded = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"otherValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":\"not a struct\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        when(baiganConfigClasses.getKeyIds()).thenReturn(Map.of("some.config.some.key", 0, "some.struct.config", 1));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        for (final ConfigurationFormat format : ConfigurationFormat.values()) {
+            final ConfigurationSnapshot previous = parser.parseSnapshot(
+                    ConfigurationConverter.convert(ConfigurationDocument.ofJson(input), format), null, options);
+            final ConfigurationSnapshot snapshot = parser.parseSnapshot(
+                    ConfigurationConverter.convert(ConfigurationDocument.ofJson(reloaded), format), previous, options);
+
+            assertThat(snapshot.get("some.config.some.key").getDefaultValue(), equalTo("otherValue"));
+            assertThat(snapshot.get("some.struct.config").getDefaultValue(), equalTo(new StructuredConfig("some value", 1)));
+            assertThat(snapshot.getChangedKeys(previous), equalTo(List.of("some.config.some.key")));
+        }
+    }
+
+    @Test
+    public void whenLazyReloadsHaveBadValuesThatAreNotLookedUp_shouldKeepLastGoodValue() {
+        final String input = "[{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.struct.config", StructuredConfig.class));
+        when(baiganConfigClasses.getKeyIds()).thenReturn(Map.of("some.struct.config", 0));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        ConfigurationSnapshot snapshot = parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+        for (int i = 0; i < 3; i++) {
+            snapshot = parser.parseSnapshot(ConfigurationDocument.ofJson(
+                    "[{\"alias\":\"some.struct.config\",\"defaultValue\":\"not a struct " + i + "\"}]"), snapshot, options);
+        }
+
+        assertThat(snapshot.get("some.struct.config").getDefaultValue(), equalTo(new StructuredConfig("some value", 1)));
+    }
+
+    @Test
+    public void whenLazyDocumentChanges_shouldReportChangedKeysOnly() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}," +
+                "{\"alias\":\"some.struct.config\",\"defaultValue\":{\"someConfig\":\"some value\",\"someOtherConfig\":1}}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of(
+                "some.config.some.key", String.class,
+                "some.struct.config", StructuredConfig.class
+        ));
+        when(baiganConfigClasses.getKeyIds()).thenReturn(Map.of("some.config.some.key", 0, "some.struct.config", 1));
+        final SnapshotParseOptions options = SnapshotParseOptions.defaults().withLazyDeserialization(true);
+
+        final ConfigurationSnapshot previous = parser.parseSnapshot(ConfigurationDocument.ofJson(input), null, options);
+        final ConfigurationSnapshot snapshot = parser.parseSnapshot(
+                ConfigurationDocument.ofJson(input.replace("someValue", "otherValue")), previous);
+
+        assertThat(snapshot.getChangedKeys(previous), equalTo(List.of("some.config.some.key")));
+    }
+
+    @Test
+    public void whenInputIsBuffer_shouldParseRemainingBytesWithoutMovingPosition() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}]";
+        final byte[] content = ConfigurationConverter.convert(ConfigurationDocument.ofJson(input), ConfigurationFormat.SMILE)
+                .getContent();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+        buffer.put(content).flip();
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", String.class));
+
+        assertThat(parser.parseBuffer(buffer), equalTo(List.of(
+                new Configuration<>("some.config.some.key", null, Set.of(), "someValue")
+        )));
+        assertThat(buffer.position(), equalTo(0));
+    }
+
+    @Test
+    public void whenInputIsStream_shouldParseConfigurations() {
+        final String input = "[{\"alias\":\"some.config.some.key\",\"defaultValue\":\"someValue\"}]";
+
+        when(baiganConfigClasses.getConfigTypesByKey()).thenReturn(Map.of("some.config.some.key", String.class));
+
+        assertThat(parser.parseStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), ConfigurationFormat.JSON),
+                equalTo(List.of(new Configuration<>("some.config.some.key", null, Set.of(), "someValue"))));
+    }
+
     interface ParameterizedConfig {
         Map<UUID, List<StructuredConfig>> getConfig();
     }
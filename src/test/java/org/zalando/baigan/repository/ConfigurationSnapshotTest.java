@@ -0,0 +1,111 @@
+package org.zalando.baigan.repository;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.baigan.model.Configuration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConfigurationSnapshotTest {
+
+    private final Configuration<String> first = new Configuration<>("some.config.first", null, Set.of(), "first");
+    private final Configuration<String> second = new Configuration<>("some.config.second", null, Set.of(), "second");
+    private final Configuration<String> unknown = new Configuration<>("some.unknown.key", null, Set.of(), "unknown");
+
+    @Test
+    public void whenKeysHaveIds_shouldLookUpConfigurationsByIdAndAlias() {
+        final ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(List.of(first, second, unknown),
+                Map.of("some.config.first", 1, "some.config.second", 0, "some.config.missing", 2));
+
+        assertThat(snapshot.get(1, "some.config.first"), sameInstance(first));
+        assertThat(snapshot.get(0, "some.config.second"), sameInstance(second));
+        assertThat(snapshot.get(2, "some.config.missing"), nullValue());
+        assertThat(snapshot.get(-1, "some.unknown.key"), sameInstance(unknown));
+        assertThat(snapshot.get("some.config.first"), sameInstance(first));
+        assertThat(snapshot.get("some.unknown.key"), sameInstance(unknown));
+        assertThat(snapshot.size(), equalTo(3));
+        assertThat(snapshot.getConfigurations(), equalTo(Map.of(
+                "some.config.first", first, "some.config.second", second, "some.unknown.key", unknown
+        )));
+    }
+
+    @Test
+    public void whenSnapshotHasNoKeyIds_shouldLookUpConfigurationsByAlias() {
+        final ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(List.of(first));
+
+        assertThat(snapshot.get(0, "some.config.first"), sameInstance(first));
+        assertThat(snapshot.get(0, "some.config.second"), nullValue());
+    }
+
+    @Test
+    public void whenSnapshotsAreMerged_shouldTakeConfigurationOfFirstSnapshotThatHasOne() {
+        final Map<String, Integer> keyIds = Map.of("some.config.first", 0, "some.config.second", 1);
+        final Configuration<String> otherFirst = new Configuration<>("some.config.first", null, Set.of(), "other");
+        final Configuration<String> otherUnknown = new Configuration<>("some.unknown.key", null, Set.of(), "other");
+
+        final ConfigurationSnapshot merged = ConfigurationSnapshot.merge(List.of(
+                ConfigurationSnapshot.of(List.of(first, unknown), keyIds),
+                ConfigurationSnapshot.empty(),
+                ConfigurationSnapshot.of(List.of(otherFirst, second, otherUnknown), keyIds)
+        ));
+
+        assertThat(merged.get(0, "some.config.first"), sameInstance(first));
+        assertThat(merged.get(1, "some.config.second"), sameInstance(second));
+        assertThat(merged.get("some.unknown.key"), sameInstance(unknown));
+        assertThat(merged.size(), equalTo(3));
+    }
+
+    @Test
+    public void whenMergedSnapshotsHaveDifferentKeyIds_shouldIndexConfigurationsByFirstKeyIds() {
+        final Configuration<String> otherFirst = new Configuration<>("some.config.first", null, Set.of(), "other");
+
+        final ConfigurationSnapshot merged = ConfigurationSnapshot.merge(List.of(
+                ConfigurationSnapshot.of(List.of(first)),
+                ConfigurationSnapshot.of(List.of(otherFirst, second), Map.of("some.config.first", 0, "some.config.second", 1))
+        ));
+
+        assertThat(merged.get(0, "some.config.first"), sameInstance(first));
+        assertThat(merged.get(1, "some.config.second"), sameInstance(second));
+        assertThat(merged.size(), equalTo(2));
+    }
+
+    @Test
+    public void whenSnapshotIsCreated_shouldHaveHigherVersionThanEarlierSnapshots() {
+        final ConfigurationSnapshot previous = ConfigurationSnapshot.of(List.of(first));
+        final ConfigurationSnapshot snapshot = ConfigurationSnapshot.of(List.of(first));
+
+        assertThat(snapshot.getVersion(), greaterThan(previous.getVersion()));
+        assertThat(previous.getVersion(), greaterThan(ConfigurationSnapshot.empty().getVersion()));
+    }
+
+    @Test
+    public void whenConfigurationsChange_shouldReportChangedAddedAndRemovedKeys() {
+        final Map<String, Integer> keyIds = Map.of("some.config.first", 0, "some.config.second", 1);
+        final Configuration<String> changedFirst = new Configuration<>("some.config.first", null, Set.of(), "changed");
+        final Configuration<String> equalSecond = new Configuration<>("some.config.second", null, Set.of(), "second");
+        final ConfigurationSnapshot previous = ConfigurationSnapshot.of(List.of(first, second, unknown), keyIds);
+
+        assertThat(ConfigurationSnapshot.of(List.of(first, equalSecond, unknown), keyIds).getChangedKeys(previous),
+                empty());
+        assertThat(ConfigurationSnapshot.of(List.of(changedFirst, second), keyIds).getChangedKeys(previous),
+                contains("some.config.first", "some.unknown.key"));
+        assertThat(ConfigurationSnapshot.of(List.of(first, second, unknown), keyIds)
+                .getChangedKeys(ConfigurationSnapshot.empty()),
+                contains("some.config.first", "some.config.second", "some.unknown.key"));
+    }
+
+    @Test
+    public void whenAliasIsDuplicated_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationSnapshot.of(List.of(first, first)));
+    }
+}
@@ -0,0 +1,56 @@
+package org.zalando.baigan.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.zalando.baigan.model.Condition;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ConfigurationValueReadersTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void whenKeysHaveSameType_shouldShareReaders() {
+        final ConfigurationValueReaders readers = ConfigurationValueReaders.create(objectMapper, Map.of(
+                "some.key", String.class,
+                "some.other.key", String.class,
+                "some.number", Integer.class
+        ));
+
+        assertThat(readers.get("some.key"), sameInstance(readers.get("some.other.key")));
+        assertThat(readers.get("some.key"), not(sameInstance(readers.get("some.number"))));
+        assertThat(readers.get("some.unknown.key"), nullValue());
+    }
+
+    @Test
+    public void whenReadingConditions_shouldDeserializeValuesToTypeOfKey() throws Exception {
+        final ConfigurationValueReaders readers = ConfigurationValueReaders.create(objectMapper,
+                Map.of("some.number", Long.class));
+
+        final List<Condition<Long>> conditions = readers.get("some.number").getConditionsReader().readValue(
+                "[{\"paramName\":\"param\",\"conditionType\":{\"type\":\"Equals\",\"onValue\":\"a\"},\"value\":1}]");
+
+        assertThat(conditions.get(0).getValue(), instanceOf(Long.class));
+        assertThat(readers.get("some.number").getValueReader().readValue("2"), equalTo(2L));
+    }
+
+    @Test
+    public void whenObjectMapperOrKeysAreReplaced_shouldNotBeReused() {
+        final Map<String, Type> configTypesByKey = Map.of("some.key", String.class);
+        final ConfigurationValueReaders readers = ConfigurationValueReaders.create(objectMapper, configTypesByKey);
+
+        assertThat(readers.isCreatedFor(objectMapper, configTypesByKey), equalTo(true));
+        assertThat(readers.isCreatedFor(new ObjectMapper(), configTypesByKey), equalTo(false));
+        assertThat(readers.isCreatedFor(objectMapper, Map.of("some.key", String.class)), equalTo(false));
+    }
+}
@@ -0,0 +1,183 @@
+package org.zalando.baigan.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zalando.baigan.model.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileSystemConfigurationRepositoryTest {
+
+    private static final String INITIAL_TEXT = "[{\"alias\": \"some.config.key\", \"defaultValue\": \"initial\"}]";
+    private static final String CHANGED_TEXT = "[{\"alias\": \"some.config.key\", \"defaultValue\": \"changed value\"}]";
+
+    private final ConfigurationParser parser = mock(ConfigurationParser.class);
+    private final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+    private final ConfigurationSnapshot initialSnapshot = snapshotWithValue("initial");
+    private final ConfigurationSnapshot changedSnapshot = snapshotWithValue("changed value");
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = directory.resolve("config.json");
+        Files.writeString(file, INITIAL_TEXT);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(INITIAL_TEXT)), any(), any())).thenReturn(initialSnapshot);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(CHANGED_TEXT)), any(), any())).thenReturn(changedSnapshot);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void whenFileIsUnchanged_shouldNotParseItAgain() {
+        final FileSystemConfigurationRepository repository = createRepository(Duration.ZERO);
+
+        repository.refresh(false);
+        repository.refresh(true);
+
+        assertThat(repository.getSnapshot(), sameInstance(initialSnapshot));
+        verify(parser, times(1)).parseSnapshot(eq(ConfigurationDocument.ofJson(INITIAL_TEXT)), any(), any());
+    }
+
+    @Test
+    public void whenFileIsTouchedWithoutChangingContent_shouldNotParseItAgain() throws IOException {
+        final FileSystemConfigurationRepository repository = createRepository(Duration.ZERO);
+
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        repository.refresh(false);
+
+        assertThat(repository.getSnapshot(), sameInstance(initialSnapshot));
+        verify(parser, times(1)).parseSnapshot(eq(ConfigurationDocument.ofJson(INITIAL_TEXT)), any(), any());
+    }
+
+    @Test
+    public void whenFileChanges_shouldReplaceSnapshot() throws IOException {
+        final FileSystemConfigurationRepository repository = createRepository(Duration.ZERO);
+
+        Files.writeString(file, CHANGED_TEXT);
+        repository.refresh(false);
+
+        assertThat(repository.getSnapshot(), sameInstance(changedSnapshot));
+        assertThat(repository.get("some.config.key").orElseThrow().getDefaultValue(), equalTo("changed value"));
+    }
+
+    @Test
+    public void whenChangedFileCannotBeParsed_shouldKeepSnapshot() throws IOException {
+        final FileSystemConfigurationRepository repository = createRepository(Duration.ZERO);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson("{invalid")), any(), any())).thenThrow(new IllegalArgumentException("invalid"));
+
+        Files.writeString(file, "{invalid");
+        repository.refresh(false);
+
+        assertThat(repository.getSnapshot(), sameInstance(initialSnapshot));
+    }
+
+    @Test
+    public void whenFileChangesInBackground_shouldReplaceSnapshotOnRefreshThread() throws Exception {
+        try (FileSystemConfigurationRepository repository = createRepository(Duration.ofMillis(50))) {
+            Files.writeString(file, CHANGED_TEXT);
+
+            final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (repository.getSnapshot() != changedSnapshot && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(repository.getSnapshot(), sameInstance(changedSnapshot));
+        }
+    }
+
+    @Test
+    public void whenClosed_shouldShutDownOwnExecutorOnly() throws IOException {
+        final ScheduledExecutorService ownExecutor = new ScheduledThreadPoolExecutor(1);
+        final FileSystemConfigurationRepository owningRepository = new FileSystemConfigurationRepository(
+                file.toString(), Duration.ofMinutes(1), ownExecutor, true, parser, SnapshotParseOptions.defaults());
+        final FileSystemConfigurationRepository sharingRepository = createRepository(Duration.ofMinutes(1));
+
+        owningRepository.close();
+        sharingRepository.close();
+
+        assertThat(ownExecutor.isShutdown(), equalTo(true));
+        assertThat(executor.isShutdown(), equalTo(false));
+    }
+
+    @Test
+    public void whenSubclassOverridesTextResourceHook_shouldLoadFileThroughIt() throws IOException {
+        Files.writeString(file, CHANGED_TEXT);
+
+        final FileSystemConfigurationRepository repository = new FileSystemConfigurationRepository(file.toString(),
+                Duration.ZERO, executor, false, parser, SnapshotParseOptions.defaults()) {
+            @Override
+            protected String loadResource(final String file) {
+                return INITIAL_TEXT;
+            }
+        };
+
+        assertThat(repository.getSnapshot(), sameInstance(initialSnapshot));
+    }
+
+    @Test
+    public void whenSubclassOverridesConfigurationsHook_shouldLoadConfigurationsThroughIt() throws IOException {
+        final AtomicInteger loads = new AtomicInteger();
+        final FileSystemConfigurationRepository repository = new FileSystemConfigurationRepository(file.toString(),
+                Duration.ZERO, executor, false, parser, SnapshotParseOptions.defaults()) {
+            @Override
+            protected Map<String, Configuration<?>> loadConfigurations(final String filename) {
+                final String value = "loaded " + loads.incrementAndGet();
+                return Map.of("some.config.key", new Configuration<>("some.config.key", "", Set.of(), value));
+            }
+        };
+
+        Files.writeString(file, CHANGED_TEXT);
+        repository.refresh(false);
+
+        assertThat(repository.get("some.config.key").orElseThrow().getDefaultValue(), equalTo("loaded 2"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void whenConfigurationsAreLoadedThroughDeprecatedHook_shouldParseFile() {
+        final FileSystemConfigurationRepository repository = createRepository(Duration.ZERO);
+
+        final Map<String, Configuration<?>> configurations = repository.loadConfigurations(file.toString());
+
+        assertThat(configurations, equalTo(initialSnapshot.getConfigurations()));
+    }
+
+    private FileSystemConfigurationRepository createRepository(final Duration refreshInterval) {
+        return new FileSystemConfigurationRepository(file.toString(), refreshInterval, executor, false, parser,
+                SnapshotParseOptions.defaults());
+    }
+
+    private static ConfigurationSnapshot snapshotWithValue(final String value) {
+        return ConfigurationSnapshot.of(List.of(new Configuration<>("some.config.key", "", Set.of(), value)));
+    }
+}
@@ -0,0 +1,211 @@
+package org.zalando.baigan.repository;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zalando.baigan.model.Configuration;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class S3ConfigurationRepositoryTest {
+
+    private static final String SNAPSHOT_TEXT = "[{\"alias\": \"some.config.key\", \"defaultValue\": \"from snapshot\"}]";
+    private static final String S3_TEXT = "[{\"alias\": \"some.config.key\", \"defaultValue\": \"from s3\"}]";
+
+    private final ConfigurationParser parser = mock(ConfigurationParser.class);
+    private final S3Client s3Client = mock(S3Client.class);
+    private final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+    private final ConfigurationSnapshot snapshotFromFile = snapshotWithValue("from snapshot");
+    private final ConfigurationSnapshot snapshotFromS3 = snapshotWithValue("from s3");
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void whenSnapshotFileIsRecent_shouldServeItWhileS3IsUnavailable() throws Exception {
+        final Path snapshotFile = directory.resolve("snapshot.json");
+        Files.writeString(snapshotFile, SNAPSHOT_TEXT);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(SNAPSHOT_TEXT)), any(), any())).thenReturn(snapshotFromFile);
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(503).message("Unavailable").build());
+
+        final S3ConfigurationRepository repository = builder(snapshotFile).build();
+
+        assertThat(repository.getSnapshot(), sameInstance(snapshotFromFile));
+        awaitExecutor();
+        assertThat(repository.getSnapshot(), sameInstance(snapshotFromFile));
+    }
+
+    @Test
+    public void whenSnapshotFileIsServed_shouldRefreshFromS3InBackgroundAndStoreResult() throws Exception {
+        final Path snapshotFile = directory.resolve("snapshot.json");
+        Files.writeString(snapshotFile, SNAPSHOT_TEXT);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(SNAPSHOT_TEXT)), any(), any())).thenReturn(snapshotFromFile);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(S3_TEXT)), any(), any())).thenReturn(snapshotFromS3);
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(object(S3_TEXT));
+
+        final S3ConfigurationRepository repository = builder(snapshotFile).build();
+        awaitExecutor();
+
+        assertThat(repository.getSnapshot(), sameInstance(snapshotFromS3));
+        assertThat(Files.readString(snapshotFile), equalTo(S3_TEXT));
+    }
+
+    @Test
+    public void whenSnapshotFileIsServed_shouldNotRefreshWhileInitialLoadIsRunning() throws Exception {
+        final Path snapshotFile = directory.resolve("snapshot.json");
+        Files.writeString(snapshotFile, SNAPSHOT_TEXT);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(SNAPSHOT_TEXT)), any(), any())).thenReturn(snapshotFromFile);
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(S3_TEXT)), any(), any())).thenReturn(snapshotFromS3);
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger runningLoads = new AtomicInteger();
+        final AtomicInteger maxRunningLoads = new AtomicInteger();
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            maxRunningLoads.accumulateAndGet(runningLoads.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(loads.getAndIncrement() == 0 ? 100 : 1);
+                return object(S3_TEXT);
+            } finally {
+                runningLoads.decrementAndGet();
+            }
+        });
+        final ScheduledExecutorService multiThreadedExecutor = new ScheduledThreadPoolExecutor(4);
+        try {
+            builder(snapshotFile).executor(multiThreadedExecutor).refreshInterval(Duration.ofMillis(5)).build();
+
+            final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (loads.get() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(loads.get(), greaterThanOrEqualTo(5));
+            assertThat(maxRunningLoads.get(), equalTo(1));
+        } finally {
+            multiThreadedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenLoadingAsynchronously_shouldParseOnParseExecutor() {
+        final AtomicReference<String> parsingThread = new AtomicReference<>();
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(S3_TEXT)), any(), any())).thenAnswer(invocation -> {
+            parsingThread.set(Thread.currentThread().getName());
+            return snapshotFromS3;
+        });
+        final ExecutorService parseExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("test-parse-%d").build());
+        try {
+            final S3ConfigurationRepository repository = asyncBuilder().executor(executor).parseExecutor(parseExecutor)
+                    .build();
+
+            assertThat(repository.getSnapshot(), sameInstance(snapshotFromS3));
+            assertThat(parsingThread.get(), equalTo("test-parse-0"));
+        } finally {
+            parseExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void whenLoadingAsynchronouslyWithoutExecutor_shouldNotParseOnSharedRefreshThread() {
+        final AtomicReference<String> parsingThread = new AtomicReference<>();
+        when(parser.parseSnapshot(eq(ConfigurationDocument.ofJson(S3_TEXT)), any(), any())).thenAnswer(invocation -> {
+            parsingThread.set(Thread.currentThread().getName());
+            return snapshotFromS3;
+        });
+
+        final S3ConfigurationRepository repository = asyncBuilder().build();
+
+        assertThat(repository.getSnapshot(), sameInstance(snapshotFromS3));
+        assertThat(parsingThread.get(), startsWith("baigan-s3-parse-"));
+    }
+
+    @Test
+    public void whenSnapshotFileIsTooOld_shouldLoadFromS3OnStartup() throws IOException {
+        final Path snapshotFile = directory.resolve("snapshot.json");
+        Files.writeString(snapshotFile, SNAPSHOT_TEXT);
+        Files.setLastModifiedTime(snapshotFile, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(503).message("Unavailable").build());
+
+        assertThrows(S3Exception.class, () -> builder(snapshotFile).maxSnapshotAge(Duration.ofDays(1)).build());
+    }
+
+    private S3ConfigurationRepositoryBuilder builder(final Path snapshotFile) {
+        return new S3ConfigurationRepositoryBuilder(parser)
+                .bucketName("some-bucket")
+                .key("some-key")
+                .s3Client(s3Client)
+                .kmsClient(mock(KmsClient.class))
+                .executor(executor)
+                .refreshInterval(Duration.ZERO)
+                .snapshotFile(snapshotFile);
+    }
+
+    @SuppressWarnings("unchecked")
+    private S3ConfigurationRepositoryBuilder asyncBuilder() {
+        final S3AsyncClient s3AsyncClient = mock(S3AsyncClient.class);
+        when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.completedFuture(object(S3_TEXT)));
+        return new S3ConfigurationRepositoryBuilder(parser)
+                .bucketName("some-bucket")
+                .key("some-key")
+                .s3AsyncClient(s3AsyncClient)
+                .kmsAsyncClient(mock(KmsAsyncClient.class))
+                .refreshInterval(Duration.ZERO);
+    }
+
+    private void awaitExecutor() throws Exception {
+        executor.schedule(() -> null, 0, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+    }
+
+    private static ResponseBytes<GetObjectResponse> object(final String content) {
+        return ResponseBytes.fromByteArray(GetObjectResponse.builder().eTag("\"etag\"").build(),
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ConfigurationSnapshot snapshotWithValue(final String value) {
+        return ConfigurationSnapshot.of(List.of(new Configuration<>("some.config.key", "", Set.of(), value)));
+    }
+}
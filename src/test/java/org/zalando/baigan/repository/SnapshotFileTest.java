@@ -0,0 +1,76 @@
+package org.zalando.baigan.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SnapshotFileTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void whenSnapshotWasWritten_shouldReadItBack() {
+        final SnapshotFile snapshotFile = snapshotFile(directory.resolve("nested/snapshot.json"), NOW);
+
+        snapshotFile.write(ConfigurationDocument.ofJson("[]"));
+
+        assertThat(snapshotFile.readIfFresh(), equalTo(Optional.of(ConfigurationDocument.ofJson("[]"))));
+    }
+
+    @Test
+    public void whenFileDoesNotExist_shouldReadNothing() {
+        assertThat(snapshotFile(directory.resolve("snapshot.json"), NOW).readIfFresh(), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void whenSnapshotIsOlderThanMaxAge_shouldReadNothing() {
+        final Path path = directory.resolve("snapshot.json");
+        snapshotFile(path, NOW).write(ConfigurationDocument.ofJson("[]"));
+
+        assertThat(snapshotFile(path, NOW.plus(Duration.ofHours(2))).readIfFresh(), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void whenSnapshotIsMarkedCurrent_shouldExtendItsAge() throws IOException {
+        final Path path = directory.resolve("snapshot.json");
+        snapshotFile(path, NOW).write(ConfigurationDocument.ofJson("[]"));
+
+        snapshotFile(path, NOW.plus(Duration.ofMinutes(50))).markCurrent();
+
+        assertThat(Files.getLastModifiedTime(path), equalTo(FileTime.from(NOW.plus(Duration.ofMinutes(50)))));
+        assertThat(snapshotFile(path, NOW.plus(Duration.ofMinutes(100))).readIfFresh(), equalTo(Optional.of(ConfigurationDocument.ofJson("[]"))));
+    }
+
+    @Test
+    public void whenSnapshotIsReplaced_shouldNotLeaveTemporaryFiles() throws IOException {
+        final Path path = directory.resolve("snapshot.json");
+        final SnapshotFile snapshotFile = snapshotFile(path, NOW);
+
+        snapshotFile.write(ConfigurationDocument.ofJson("[]"));
+        snapshotFile.write(ConfigurationDocument.ofJson("[{}]"));
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.count(), equalTo(1L));
+        }
+        assertThat(snapshotFile.readIfFresh(), equalTo(Optional.of(ConfigurationDocument.ofJson("[{}]"))));
+    }
+
+    private static SnapshotFile snapshotFile(final Path path, final Instant now) {
+        return new SnapshotFile(path, Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,75 @@
+package org.zalando.baigan.repository;
+
+import org.zalando.baigan.model.Configuration;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A repository serving a fixed snapshot, which tests replace with {@link #publish(ConfigurationSnapshot)} to
+ * simulate a reload.
+ */
+public final class SnapshotRepository implements ConfigurationRepository {
+
+    private static final Map<String, Integer> KEY_IDS = Map.of("some.config.key", 0, "some.other.key", 1);
+
+    private final List<Consumer<ConfigurationSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConfigurationSnapshot snapshot;
+
+    public SnapshotRepository(final ConfigurationSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Creates a snapshot of the given configurations, with key ids for {@code some.config.key} and
+     * {@code some.other.key}.
+     */
+    public static ConfigurationSnapshot snapshot(final Configuration<?>... configurations) {
+        return ConfigurationSnapshot.of(List.of(configurations), KEY_IDS);
+    }
+
+    public static Configuration<String> configuration(final String key, final String value) {
+        return new Configuration<>(key, null, Set.of(), value);
+    }
+
+    /**
+     * Replaces the snapshot and notifies the listeners.
+     */
+    public void publish(final ConfigurationSnapshot snapshot) {
+        this.snapshot = snapshot;
+        listeners.forEach(listener -> listener.accept(snapshot));
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Configuration> get(@Nonnull final String key) {
+        return Optional.ofNullable(snapshot.get(key));
+    }
+
+    @Override
+    public ConfigurationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nonnull
+    @Override
+    public SnapshotListenerRegistration addSnapshotListener(@Nonnull final Consumer<ConfigurationSnapshot> listener) {
+        final Consumer<ConfigurationSnapshot> registered = listener::accept;
+        listeners.add(registered);
+        return () -> listeners.remove(registered);
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    @Override
+    public void put(@Nonnull final String key, @Nonnull final String value) {
+        throw new UnsupportedOperationException();
+    }
+}
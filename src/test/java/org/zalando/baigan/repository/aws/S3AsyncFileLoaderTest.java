@@ -0,0 +1,96 @@
+package org.zalando.baigan.repository.aws;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.KmsInternalException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class S3AsyncFileLoaderTest {
+
+    private final S3AsyncClient s3Client = mock(S3AsyncClient.class);
+    private final KmsAsyncClient kmsClient = mock(KmsAsyncClient.class);
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+    private final S3AsyncFileLoader loader = new S3AsyncFileLoader("some-bucket", "some-key", s3Client, kmsClient, scheduler);
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void whenObjectIsNotModified_shouldSendLastETagAndSkipContent() {
+        when(s3Client.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(completedFuture(object("[]", "\"etag-1\"")))
+                .thenReturn(failedFuture(new CompletionException(
+                        S3Exception.builder().statusCode(304).message("Not Modified").build())));
+
+        assertThat(loader.loadContentIfChanged().join(), equalTo(Optional.of("[]")));
+        assertThat(loader.loadContentIfChanged().join(), equalTo(Optional.empty()));
+
+        final ArgumentCaptor<GetObjectRequest> requests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObject(requests.capture(), any(AsyncResponseTransformer.class));
+        assertThat(requests.getAllValues().get(1).ifNoneMatch(), equalTo("\"etag-1\""));
+    }
+
+    @Test
+    public void whenRequestFails_shouldFailFuture() {
+        when(s3Client.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(failedFuture(S3Exception.builder().statusCode(403).message("Forbidden").build()));
+
+        final CompletionException e = assertThrows(CompletionException.class, () -> loader.loadContentIfChanged().join());
+        assertThat(e.getCause(), instanceOf(S3Exception.class));
+    }
+
+    @Test
+    public void whenContentIsEncrypted_shouldRetryDecryptionWithoutBlocking() {
+        final String encrypted = "aws:kms:" + Base64.getEncoder().encodeToString("cipher".getBytes(StandardCharsets.UTF_8));
+        when(s3Client.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(completedFuture(object(encrypted, "\"etag-1\"")));
+        when(kmsClient.decrypt(any(DecryptRequest.class)))
+                .thenReturn(failedFuture(new CompletionException(KmsInternalException.builder().message("internal").build())))
+                .thenReturn(completedFuture(DecryptResponse.builder()
+                        .plaintext(SdkBytes.fromUtf8String("[]"))
+                        .build()));
+
+        assertThat(loader.loadContentIfChanged().join(), equalTo(Optional.of("[]")));
+        verify(kmsClient, times(2)).decrypt(any(DecryptRequest.class));
+    }
+
+    private static ResponseBytes<GetObjectResponse> object(final String content, final String eTag) {
+        return ResponseBytes.fromByteArray(
+                GetObjectResponse.builder().eTag(eTag).build(),
+                content.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,83 @@
+package org.zalando.baigan.repository.aws;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class S3FileLoaderTest {
+
+    private final S3Client s3Client = mock(S3Client.class);
+    private final KmsClient kmsClient = mock(KmsClient.class);
+    private final S3FileLoader loader = new S3FileLoader("some-bucket", "some-key", s3Client, kmsClient);
+
+    @Test
+    public void whenObjectIsNotModified_shouldSendLastETagAndSkipContent() {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(object("[]", "\"etag-1\"", "v1"))
+                .thenThrow(S3Exception.builder().statusCode(304).message("Not Modified").build());
+
+        assertThat(loader.loadContentIfChanged(), equalTo(Optional.of("[]")));
+        assertThat(loader.loadContentIfChanged(), equalTo(Optional.empty()));
+
+        final ArgumentCaptor<GetObjectRequest> requests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client, times(2)).getObjectAsBytes(requests.capture());
+        assertThat(requests.getAllValues().get(0).ifNoneMatch(), nullValue());
+        assertThat(requests.getAllValues().get(1).ifNoneMatch(), equalTo("\"etag-1\""));
+        verifyNoInteractions(kmsClient);
+    }
+
+    @Test
+    public void whenObjectHasSameETagAndVersion_shouldSkipContent() {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(object("[]", "\"etag-1\"", "v1"))
+                .thenReturn(object("[]", "\"etag-1\"", "v1"));
+
+        assertThat(loader.loadContentIfChanged(), equalTo(Optional.of("[]")));
+        assertThat(loader.loadContentIfChanged(), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void whenObjectChanged_shouldReturnNewContent() {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(object("[]", "\"etag-1\"", "v1"))
+                .thenReturn(object("[{}]", "\"etag-2\"", "v2"));
+
+        assertThat(loader.loadContentIfChanged(), equalTo(Optional.of("[]")));
+        assertThat(loader.loadContentIfChanged(), equalTo(Optional.of("[{}]")));
+    }
+
+    @Test
+    public void whenRequestFails_shouldRethrow() {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(403).message("Forbidden").build());
+
+        assertThrows(S3Exception.class, loader::loadContentIfChanged);
+    }
+
+    private static ResponseBytes<GetObjectResponse> object(final String content, final String eTag,
+                                                           final String versionId) {
+        return ResponseBytes.fromByteArray(
+                GetObjectResponse.builder().eTag(eTag).versionId(versionId).build(),
+                content.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}